@@ -5,6 +5,7 @@ import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -59,6 +60,18 @@ public class GatewayConfig {
                         }))
                         .uri("lb://payment-service"))
 
+                // Server-sent order status stream: same rate limit for the subscribe call, but the
+                // response is long-lived, so the global response timeout must not cut it off.
+                .route("order-service-events", r -> r
+                        .path("/api/orders/{id}/events")
+                        .filters(f -> f.requestRateLimiter(c -> {
+                            c.setRateLimiter(redisRateLimiter);
+                            c.setKeyResolver(keyResolver);
+                            c.setDenyEmptyKey(false);
+                        }))
+                        .metadata(RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, -1)
+                        .uri("lb://order-service"))
+
                 .route("order-service", r -> r
                         .path("/api/orders/**")
                         .filters(f -> f.requestRateLimiter(c -> {
@@ -1,10 +1,20 @@
 package org.example.common.event;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Published when orders are created. A single order fills {@code orderId}, {@code productId} and
+ * {@code quantity}; a multi-line checkout instead fills {@code checkoutId} and {@code lines}, one per
+ * order, so the whole cart is reserved in one pass.
+ */
 public class OrderCreatedEvent {
     private String eventId;
     private String orderId;
     private String productId;
     private int quantity;
+    private String checkoutId;
+    private List<Line> lines = new ArrayList<>();
 
     public OrderCreatedEvent() {
     }
@@ -47,4 +57,59 @@ public class OrderCreatedEvent {
     public void setQuantity(int quantity) {
         this.quantity = quantity;
     }
+
+    public String getCheckoutId() {
+        return checkoutId;
+    }
+
+    public void setCheckoutId(String checkoutId) {
+        this.checkoutId = checkoutId;
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<Line> lines) {
+        this.lines = lines != null ? lines : new ArrayList<>();
+    }
+
+    public static class Line {
+        private String orderId;
+        private String productId;
+        private int quantity;
+
+        public Line() {
+        }
+
+        public Line(String orderId, String productId, int quantity) {
+            this.orderId = orderId;
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public void setOrderId(String orderId) {
+            this.orderId = orderId;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public void setProductId(String productId) {
+            this.productId = productId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        public void setQuantity(int quantity) {
+            this.quantity = quantity;
+        }
+    }
 }
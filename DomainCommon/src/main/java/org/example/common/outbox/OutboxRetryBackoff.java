@@ -0,0 +1,32 @@
+package org.example.common.outbox;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for outbox rows that failed to publish. Attempt {@code n} waits a
+ * random duration in {@code [d/2, d]} where {@code d = min(max, base * 2^(n-1))}, so rows that failed
+ * together do not all come back on the same poll.
+ */
+public final class OutboxRetryBackoff {
+
+    private final long baseMillis;
+    private final long maxMillis;
+
+    public OutboxRetryBackoff(Duration base, Duration max) {
+        this.baseMillis = Math.max(1, base.toMillis());
+        this.maxMillis = Math.max(baseMillis, max.toMillis());
+    }
+
+    public Duration delayFor(int attempt) {
+        int exponent = Math.min(Math.max(attempt - 1, 0), 30);
+        long ceiling = Math.min(maxMillis, baseMillis << exponent);
+        long floor = ceiling / 2;
+        return Duration.ofMillis(floor + ThreadLocalRandom.current().nextLong(ceiling - floor + 1));
+    }
+
+    public LocalDateTime nextAttemptAt(int attempt) {
+        return LocalDateTime.now().plus(delayFor(attempt));
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.common.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-routing-key circuit for outbox relays. After {@code failureThreshold} consecutive publish
+ * failures a routing key is opened for {@code openDuration} and the relay stops claiming its rows, so a
+ * single broken exchange or binding cannot take the whole relay page. Once the open period elapses the
+ * circuit turns half-open and {@link #tryAcquire} admits exactly one row of that key as a probe: success
+ * closes the circuit, failure reopens it. A probe that never reports back is given up after another
+ * {@code openDuration}, and the next row probes instead.
+ */
+public final class RoutingKeyCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(RoutingKeyCircuitBreaker.class);
+
+    /** Placeholder for {@code routing_key NOT IN (:keys)} when no circuit is open; never a real key. */
+    public static final String NO_OPEN_CIRCUIT = "";
+
+    private enum Phase { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    public RoutingKeyCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Whether rows of {@code routingKey} are currently held back: the circuit is open, or half-open with
+     * its probe still in flight.
+     */
+    public boolean isOpen(String routingKey) {
+        State state = states.get(routingKey);
+        return state != null && state.blocks(System.nanoTime());
+    }
+
+    /**
+     * Routing keys whose rows are currently held back (see {@link #isOpen}), or a single
+     * {@link #NO_OPEN_CIRCUIT} placeholder, so the result can always be bound to a {@code NOT IN} clause.
+     * A key whose open period has elapsed is not listed, so the next query can pick up its probe row.
+     */
+    public List<String> openRoutingKeysOrPlaceholder() {
+        long now = System.nanoTime();
+        List<String> open = states.entrySet().stream()
+                .filter(e -> e.getValue().blocks(now))
+                .map(Map.Entry::getKey)
+                .toList();
+        return open.isEmpty() ? List.of(NO_OPEN_CIRCUIT) : open;
+    }
+
+    /**
+     * Asks to publish one row of {@code routingKey}. Always granted while the circuit is closed. Once an
+     * open period has elapsed, exactly one caller wins the switch to half-open and publishes the probe;
+     * everyone else is refused until the probe reports through {@link #recordSuccess} or
+     * {@link #recordFailure}.
+     */
+    public boolean tryAcquire(String routingKey) {
+        while (true) {
+            State state = states.get(routingKey);
+            if (state == null || state.phase == Phase.CLOSED) {
+                return true;
+            }
+            long now = System.nanoTime();
+            if (state.blocks(now)) {
+                return false;
+            }
+            State probing = new State(Phase.HALF_OPEN, state.consecutiveFailures, now + openNanos);
+            if (states.replace(routingKey, state, probing)) {
+                log.info("Outbox circuit for routing key '{}' half-open: probing with one row", routingKey);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hands back a probe granted by {@link #tryAcquire} that will not be published, e.g. because another
+     * instance claimed the row first. The circuit returns to open with its period already elapsed, so the
+     * next {@code tryAcquire} probes again instead of waiting out the probe deadline. No-op unless the
+     * circuit is half-open.
+     */
+    public void release(String routingKey) {
+        State state = states.get(routingKey);
+        if (state != null && state.phase == Phase.HALF_OPEN
+                && states.replace(routingKey, state, new State(Phase.OPEN, state.consecutiveFailures, System.nanoTime()))) {
+            log.debug("Outbox circuit for routing key '{}' probe released unpublished", routingKey);
+        }
+    }
+
+    public void recordSuccess(String routingKey) {
+        State previous = states.remove(routingKey);
+        if (previous != null && previous.phase != Phase.CLOSED) {
+            log.info("Outbox circuit for routing key '{}' closed", routingKey);
+        }
+    }
+
+    public void recordFailure(String routingKey) {
+        states.compute(routingKey, (key, state) -> {
+            int failures = state == null ? 1 : state.consecutiveFailures + 1;
+            if (state != null && state.phase == Phase.HALF_OPEN) {
+                log.warn("Outbox circuit for routing key '{}' reopened: probe failed", key);
+                return new State(Phase.OPEN, failures, System.nanoTime() + openNanos);
+            }
+            if (failures >= failureThreshold) {
+                log.warn("Outbox circuit for routing key '{}' opened after {} consecutive failures", key, failures);
+                return new State(Phase.OPEN, failures, System.nanoTime() + openNanos);
+            }
+            return new State(Phase.CLOSED, failures, 0L);
+        });
+    }
+
+    /**
+     * Immutable, so {@link #tryAcquire} can compare-and-set it. {@code untilNanos} is the end of the open
+     * period, or the probe deadline while half-open.
+     */
+    private static final class State {
+        private final Phase phase;
+        private final int consecutiveFailures;
+        private final long untilNanos;
+
+        private State(Phase phase, int consecutiveFailures, long untilNanos) {
+            this.phase = phase;
+            this.consecutiveFailures = consecutiveFailures;
+            this.untilNanos = untilNanos;
+        }
+
+        private boolean blocks(long now) {
+            return phase != Phase.CLOSED && now - untilNanos < 0;
+        }
+    }
+}
@@ -3,12 +3,14 @@ package org.example.orderService.client;
 import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import org.example.orderService.dto.ProductCatalogPage;
 import org.example.orderService.dto.ProductResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.Optional;
 
 @Component
 public class ProductServiceClient {
@@ -45,4 +47,17 @@ public class ProductServiceClient {
                 .timeout(CALL_TIMEOUT)
                 .block();
     }
+
+    public ProductCatalogPage getCatalogPage(String after, int limit) {
+        return webClient.get()
+                .uri(uriBuilder -> uriBuilder.path("/api/products/catalog")
+                        .queryParamIfPresent("after", Optional.ofNullable(after))
+                        .queryParam("limit", limit)
+                        .build())
+                .retrieve()
+                .bodyToMono(ProductCatalogPage.class)
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker))
+                .timeout(CALL_TIMEOUT)
+                .block();
+    }
 }
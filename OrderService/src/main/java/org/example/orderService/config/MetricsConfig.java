@@ -0,0 +1,32 @@
+package org.example.orderService.config;
+
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Publishes histograms for HikariCP's connection acquire and hold ({@code usage}) timers, so pool
+     * hold time can be compared against the {@code orders.create.phase} timers.
+     */
+    @Bean
+    public MeterFilter connectionPoolHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                String name = id.getName();
+                if (name.equals("hikaricp.connections.usage") || name.equals("hikaricp.connections.acquire")) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
@@ -1,13 +1,18 @@
 package org.example.orderService.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
 import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitAdmin;
 import org.springframework.amqp.support.converter.JacksonJsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.amqp.autoconfigure.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -26,9 +31,12 @@ public class RabbitMQConfig {
     public static final String PAYMENT_RESULT_QUEUE = "payment.result.queue";
     public static final String PRODUCT_UPDATED_QUEUE = "product.updated.queue";
 
+    public static final String ORDER_STATUS_BROADCAST_EXCHANGE = "order.status.broadcast";
+
     public static final String DLX_EXCHANGE_NAME = "ordering.dlx";
     public static final String STOCK_RESERVED_DLQ = "stock.reserved.dlq";
     public static final String STOCK_RESERVATION_FAILED_DLQ = "stock.reservation.failed.dlq";
+    public static final String PRODUCT_UPDATED_DLQ = "product.updated.dlq";
 
     @Bean
     public TopicExchange exchange() {
@@ -65,9 +73,31 @@ public class RabbitMQConfig {
     @Bean
     public Queue productUpdatedQueue() {
         return org.springframework.amqp.core.QueueBuilder.durable(PRODUCT_UPDATED_QUEUE)
+                .withArgument("x-dead-letter-exchange", DLX_EXCHANGE_NAME)
+                .withArgument("x-dead-letter-routing-key", PRODUCT_UPDATED_QUEUE + ".dlq")
                 .build();
     }
 
+    @Bean
+    public FanoutExchange orderStatusBroadcastExchange() {
+        return new FanoutExchange(ORDER_STATUS_BROADCAST_EXCHANGE);
+    }
+
+    /**
+     * One exclusive, auto-delete queue per instance, so every instance sees every broadcast.
+     */
+    @Bean
+    public Queue orderStatusBroadcastQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding bindingOrderStatusBroadcast(
+            @org.springframework.beans.factory.annotation.Qualifier("orderStatusBroadcastQueue") Queue orderStatusBroadcastQueue,
+            FanoutExchange orderStatusBroadcastExchange) {
+        return BindingBuilder.bind(orderStatusBroadcastQueue).to(orderStatusBroadcastExchange);
+    }
+
     @Bean
     public Queue stockReservedDlq() {
         return new Queue(STOCK_RESERVED_DLQ);
@@ -78,6 +108,11 @@ public class RabbitMQConfig {
         return new Queue(STOCK_RESERVATION_FAILED_DLQ);
     }
 
+    @Bean
+    public Queue productUpdatedDlq() {
+        return new Queue(PRODUCT_UPDATED_DLQ);
+    }
+
     @Bean
     public Binding bindingStockReserved(
             @org.springframework.beans.factory.annotation.Qualifier("stockReservedQueue") Queue stockReservedQueue,
@@ -121,11 +156,42 @@ public class RabbitMQConfig {
                 .with(STOCK_RESERVATION_FAILED_QUEUE + ".dlq");
     }
 
+    @Bean
+    public Binding bindingProductUpdatedDlq(
+            @org.springframework.beans.factory.annotation.Qualifier("productUpdatedDlq") Queue productUpdatedDlq,
+            @org.springframework.beans.factory.annotation.Qualifier("dlxExchange") TopicExchange dlxExchange) {
+        return BindingBuilder.bind(productUpdatedDlq).to(dlxExchange).with(PRODUCT_UPDATED_QUEUE + ".dlq");
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new JacksonJsonMessageConverter();
     }
 
+    /**
+     * Delivers up to {@code product-updates.batch-size} messages per listener call, or whatever arrived
+     * within {@code product-updates.batch-timeout-ms}; the whole batch is acked once the listener returns.
+     * Everything else (acknowledge mode, concurrency, retry, ...) comes from
+     * {@code spring.rabbitmq.listener.simple.*} like the default factory. A batch that still fails is
+     * rejected without requeue and lands on {@link #PRODUCT_UPDATED_DLQ} instead of redelivering forever.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory productUpdatedBatchContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
+            ConnectionFactory connectionFactory,
+            @Value("${product-updates.batch-size:500}") int batchSize,
+            @Value("${product-updates.batch-timeout-ms:200}") long batchTimeoutMs) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setDefaultRequeueRejected(false);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setBatchReceiveTimeout(batchTimeoutMs);
+        factory.setPrefetchCount(batchSize);
+        return factory;
+    }
+
     @Bean
     public RabbitAdmin rabbitAdmin(ConnectionFactory connectionFactory) {
         return new RabbitAdmin(connectionFactory);
@@ -0,0 +1,65 @@
+package org.example.orderService.config;
+
+import org.example.orderService.service.ReadReplicaRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@Configuration
+public class ReadReplicaConfig {
+
+    /**
+     * When {@code datasource.replicas.urls} is set, wraps the auto-configured primary DataSource so that
+     * read-only transactions take their connection from {@link ReadReplicaRouter}. The proxy fetches the
+     * physical connection on the first statement, by which point the transaction has marked it read-only.
+     * Everything else (writes, Flyway, ShedLock, JdbcTemplate outside a transaction) stays on the primary.
+     */
+    @Bean
+    public static BeanPostProcessor readReplicaDataSourcePostProcessor(Environment environment,
+                                                                       ObjectProvider<ReadReplicaRouter> router) {
+        boolean enabled = !environment.getProperty("datasource.replicas.urls", "").isBlank();
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!enabled || !"dataSource".equals(beanName) || !(bean instanceof DataSource primary)) {
+                    return bean;
+                }
+                LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+                proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, router));
+                return proxy;
+            }
+        };
+    }
+
+    /**
+     * Resolves the router on first use rather than while the primary DataSource is being created.
+     */
+    private static final class ReplicaRoutingDataSource extends AbstractDataSource {
+
+        private final DataSource primary;
+        private final ObjectProvider<ReadReplicaRouter> router;
+
+        ReplicaRoutingDataSource(DataSource primary, ObjectProvider<ReadReplicaRouter> router) {
+            this.primary = primary;
+            this.router = router;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return router.getObject().route(primary).getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return router.getObject().route(primary).getConnection(username, password);
+        }
+    }
+}
@@ -11,15 +11,10 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-
 @RestController
 @RequestMapping("/api/admin")
 public class AdminStatsController {
 
-    private static final long STUCK_MINUTES = 10;
-
     private final OutboxEventRepository outboxRepo;
     private final String internalToken;
 
@@ -35,12 +30,11 @@ public class AdminStatsController {
         if (!internalToken.equals(token)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
-        LocalDateTime threshold = LocalDateTime.now().minus(STUCK_MINUTES, ChronoUnit.MINUTES);
         return ResponseEntity.ok(new OutboxStats(
                 outboxRepo.countByStatus(OutboxEvent.EventStatus.PENDING),
                 outboxRepo.countByStatus(OutboxEvent.EventStatus.PROCESSING),
                 outboxRepo.countByStatus(OutboxEvent.EventStatus.COMPLETED),
                 outboxRepo.countByStatus(OutboxEvent.EventStatus.FAILED),
-                outboxRepo.countStuckProcessingEvents(threshold)));
+                outboxRepo.countExpiredProcessingEvents()));
     }
 }
@@ -1,43 +1,69 @@
 package org.example.orderService.controller;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.example.common.model.OrderStatus;
+import org.example.orderService.dto.CheckoutRequest;
+import org.example.orderService.dto.CheckoutResponse;
+import org.example.orderService.dto.OrderPage;
 import org.example.orderService.dto.OrderRequest;
 import org.example.orderService.dto.OrderResponse;
 import org.example.orderService.dto.PaymentResponse;
 import org.example.orderService.mapper.OrderMapper;
 import org.example.orderService.model.OrderEntity;
+import org.example.orderService.service.OrderExportService;
 import org.example.orderService.service.OrderService;
+import org.example.orderService.service.OrderStatusStreamRegistry;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
     private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final OrderStatusStreamRegistry orderStatusStreamRegistry;
     private final OrderMapper orderMapper;
     private static final long ASYNC_TIMEOUT = 10000L;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    // Stored as "<username>:<key>" in idempotency_keys.scoped_key VARCHAR(320); usernames are at most 50.
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final Pattern IDEMPOTENCY_KEY_CHARS = Pattern.compile("[A-Za-z0-9._:-]+");
 
-    public OrderController(OrderService orderService, OrderMapper orderMapper) {
+    public OrderController(OrderService orderService, OrderExportService orderExportService,
+                           OrderStatusStreamRegistry orderStatusStreamRegistry, OrderMapper orderMapper) {
         this.orderService = orderService;
+        this.orderExportService = orderExportService;
+        this.orderStatusStreamRegistry = orderStatusStreamRegistry;
         this.orderMapper = orderMapper;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public List<OrderResponse> getAllOrders() {
-        return orderService.getAllOrders();
+    public ResponseEntity<List<OrderResponse>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(required = false) Integer size) {
+        return toResponse(orderService.getAllOrders(cursor, size));
     }
 
     @GetMapping("/my")
-    public List<OrderResponse> getMyOrders() {
-        return orderService.getMyOrders();
+    public ResponseEntity<List<OrderResponse>> getMyOrders(@RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Integer size) {
+        return toResponse(orderService.getMyOrders(cursor, size));
     }
 
     @GetMapping("/{id}")
@@ -56,8 +82,25 @@ public class OrderController {
     }
 
     @PostMapping
-    public OrderResponse createOrder(@Valid @RequestBody OrderRequest order) {
-        return orderService.createOrder(order);
+    public OrderResponse createOrder(@Valid @RequestBody OrderRequest order,
+                                     @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            validateIdempotencyKey(idempotencyKey);
+        }
+        return orderService.createOrder(order, idempotencyKey);
+    }
+
+    private static void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH
+                || !IDEMPOTENCY_KEY_CHARS.matcher(idempotencyKey).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key must be at most "
+                    + MAX_IDEMPOTENCY_KEY_LENGTH + " characters of letters, digits, '.', '_', ':' or '-'");
+        }
+    }
+
+    @PostMapping("/checkout")
+    public CheckoutResponse checkout(@Valid @RequestBody CheckoutRequest request) {
+        return orderService.checkout(request);
     }
 
     @PutMapping("/{id}/status")
@@ -87,6 +130,27 @@ public class OrderController {
         }
     }
 
+    /**
+     * Server-sent events for one order: the current status right away, then every transition until the
+     * order reaches a final status. Replaces polling {@code GET /{id}} and {@code GET /{id}/payment}.
+     */
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamOrderStatus(@PathVariable Long id) {
+        Optional<OrderResponse> orderOpt = orderService.getOrderById(id);
+        if (orderOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        OrderResponse order = orderOpt.get();
+        org.springframework.security.core.Authentication auth = org.springframework.security.core.context.SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth != null && auth.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        if (!isAdmin && (auth == null || !java.util.Objects.equals(order.getUsername(), auth.getName()))) {
+            return ResponseEntity.status(org.springframework.http.HttpStatus.FORBIDDEN).build();
+        }
+        // The owner never changes, so the cached copy is fine for the access check; the stream itself
+        // starts from the primary.
+        return ResponseEntity.ok(orderStatusStreamRegistry.subscribe(id, () -> orderService.getOrderFromPrimary(id)));
+    }
+
     @GetMapping("/{id}/payment")
     public DeferredResult<ResponseEntity<PaymentResponse>> getOrderPaymentStatus(@PathVariable Long id) {
         DeferredResult<ResponseEntity<PaymentResponse>> deferredResult = new DeferredResult<>(ASYNC_TIMEOUT);
@@ -132,18 +196,54 @@ public class OrderController {
 
     @GetMapping("/customer/{customerName}")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<OrderResponse> getOrdersByCustomerName(@PathVariable String customerName) {
-        return orderService.getOrdersByCustomerName(customerName);
+    public ResponseEntity<List<OrderResponse>> getOrdersByCustomerName(@PathVariable String customerName,
+                                                                       @RequestParam(required = false) String cursor,
+                                                                       @RequestParam(required = false) Integer size) {
+        return toResponse(orderService.getOrdersByCustomerName(customerName, cursor, size));
     }
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN')")
-    public List<OrderResponse> getOrdersByStatus(@PathVariable OrderStatus status) {
-        return orderService.getOrdersByStatus(status);
+    public ResponseEntity<List<OrderResponse>> getOrdersByStatus(@PathVariable OrderStatus status,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(required = false) Integer size) {
+        return toResponse(orderService.getOrdersByStatus(status, cursor, size));
+    }
+
+    /**
+     * Streams all matching orders as NDJSON ({@code format=ndjson}, default) or CSV. {@code from} is
+     * inclusive and {@code to} exclusive, both ISO date-times on {@code createdAt}.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public void exportOrders(@RequestParam(defaultValue = "ndjson") String format,
+                             @RequestParam(required = false) OrderStatus status,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                             HttpServletResponse response) throws IOException {
+        OrderExportService.Format exportFormat = "csv".equalsIgnoreCase(format)
+                ? OrderExportService.Format.CSV
+                : OrderExportService.Format.NDJSON;
+        response.setContentType(exportFormat == OrderExportService.Format.CSV ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"orders." + exportFormat.name().toLowerCase() + "\"");
+        orderExportService.export(exportFormat, status, from, to, response.getOutputStream());
     }
 
     @GetMapping("/health")
     public String getStatus() {
         return "Order Service is running!";
     }
+
+    /**
+     * Listings return the page as the body and the cursor of the next page, if any, in {@code X-Next-Cursor}.
+     */
+    private static ResponseEntity<List<OrderResponse>> toResponse(OrderPage page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
 }
@@ -0,0 +1,64 @@
+package org.example.orderService.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.example.orderService.dto.OrderImportReport;
+import org.example.orderService.model.OrderImport;
+import org.example.orderService.service.OrderImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Bulk order import. A client first creates an import ({@code POST}), then streams the file into it
+ * ({@code PUT /{id}} with {@code Content-Type: text/csv} or {@code application/x-ndjson}) and can poll
+ * {@code GET /{id}} for progress while the upload is running.
+ */
+@RestController
+@RequestMapping("/api/orders/imports")
+public class OrderImportController {
+
+    private final OrderImportService orderImportService;
+
+    public OrderImportController(OrderImportService orderImportService) {
+        this.orderImportService = orderImportService;
+    }
+
+    @PostMapping
+    public ResponseEntity<OrderImportReport> createImport() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        String username = auth != null ? auth.getName() : "anonymous";
+        return ResponseEntity.status(HttpStatus.CREATED).body(orderImportService.createImport(username));
+    }
+
+    @PutMapping("/{id}")
+    public ResponseEntity<OrderImportReport> upload(@PathVariable String id, HttpServletRequest request) throws IOException {
+        if (!canAccess(orderImportService.getImport(id))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        String contentType = request.getContentType();
+        OrderImport.Format format = contentType != null && contentType.toLowerCase().contains("csv")
+                ? OrderImport.Format.CSV
+                : OrderImport.Format.NDJSON;
+        return ResponseEntity.ok(orderImportService.runImport(id, format, request.getInputStream()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderImportReport> getImport(@PathVariable String id) {
+        OrderImport job = orderImportService.getImport(id);
+        if (!canAccess(job)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(OrderImportReport.from(job));
+    }
+
+    private static boolean canAccess(OrderImport job) {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        boolean isAdmin = auth != null && auth.getAuthorities().stream().anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        return isAdmin || (auth != null && Objects.equals(job.getUsername(), auth.getName()));
+    }
+}
@@ -1,18 +1,24 @@
 package org.example.orderService.controller.admin;
 
+import org.example.common.model.OrderStatus;
 import org.example.orderService.dto.admin.DlqMessageInfoDto;
 import org.example.orderService.dto.admin.DlqQueueInfoDto;
 import org.example.orderService.dto.admin.DlqRetryResultDto;
+import org.example.orderService.dto.admin.OrderRollupDto;
 import org.example.orderService.dto.admin.OrderStatsDto;
 import org.example.orderService.dto.admin.OutboxStatsDto;
+import org.example.orderService.dto.admin.PriceCacheWarmupDto;
 import org.example.orderService.model.OutboxEvent;
-import org.example.orderService.repository.OrderRepository;
 import org.example.orderService.repository.OutboxEventRepository;
 import org.example.orderService.service.DlqAdminService;
-import org.example.orderService.service.OutboxEventProcessor;
+import org.example.orderService.service.OrderRollupService;
+import org.example.orderService.service.OrderStatusCounter;
+import org.example.orderService.service.PriceCacheWarmer;
+import org.example.orderService.scheduler.PartitionMaintenanceScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -24,7 +30,6 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
@@ -37,20 +42,26 @@ public class AdminController {
     private static final Logger log = LoggerFactory.getLogger(AdminController.class);
 
     private final OutboxEventRepository outboxEventRepository;
-    private final OrderRepository orderRepository;
+    private final OrderStatusCounter orderStatusCounter;
+    private final OrderRollupService orderRollupService;
     private final DlqAdminService dlqAdminService;
-    private final OutboxEventProcessor outboxEventProcessor;
+    private final PartitionMaintenanceScheduler partitionMaintenanceScheduler;
+    private final PriceCacheWarmer priceCacheWarmer;
     private final String adminToken;
 
     public AdminController(OutboxEventRepository outboxEventRepository,
-                           OrderRepository orderRepository,
+                           OrderStatusCounter orderStatusCounter,
+                           OrderRollupService orderRollupService,
                            DlqAdminService dlqAdminService,
-                           OutboxEventProcessor outboxEventProcessor,
+                           PartitionMaintenanceScheduler partitionMaintenanceScheduler,
+                           PriceCacheWarmer priceCacheWarmer,
                            @Value("${internal.service.token}") String adminToken) {
         this.outboxEventRepository = outboxEventRepository;
-        this.orderRepository = orderRepository;
+        this.orderStatusCounter = orderStatusCounter;
+        this.orderRollupService = orderRollupService;
         this.dlqAdminService = dlqAdminService;
-        this.outboxEventProcessor = outboxEventProcessor;
+        this.partitionMaintenanceScheduler = partitionMaintenanceScheduler;
+        this.priceCacheWarmer = priceCacheWarmer;
         this.adminToken = adminToken;
     }
 
@@ -63,8 +74,7 @@ public class AdminController {
             counts.put((OutboxEvent.EventStatus) row[0], (Long) row[1]);
         }
 
-        LocalDateTime stuckThreshold = LocalDateTime.now().minus(10, ChronoUnit.MINUTES);
-        long stuck = outboxEventRepository.countStuckProcessingEvents(stuckThreshold);
+        long stuck = outboxEventRepository.countExpiredProcessingEvents();
 
         return new OutboxStatsDto(
                 counts.getOrDefault(OutboxEvent.EventStatus.PENDING, 0L),
@@ -79,9 +89,16 @@ public class AdminController {
     public Map<String, String> triggerCleanup(@RequestHeader("X-Admin-Token") String token) {
         requireAdminToken(token);
         log.info("Manual outbox cleanup triggered via admin API.");
-        outboxEventProcessor.weeklyCleanup();
+        partitionMaintenanceScheduler.dropExpiredPartitions();
         return Map.of("status", "cleanup triggered",
-                      "retentionDays", String.valueOf(OutboxEventProcessor.CLEANUP_RETENTION_DAYS));
+                      "retentionDays", String.valueOf(PartitionMaintenanceScheduler.OUTBOX_RETENTION_DAYS));
+    }
+
+    @PostMapping("/price-cache/warmup")
+    public PriceCacheWarmupDto warmUpPriceCache(@RequestHeader("X-Admin-Token") String token) {
+        requireAdminToken(token);
+        log.info("Manual price cache warm-up triggered via admin API.");
+        return priceCacheWarmer.warmUp();
     }
 
     @GetMapping("/orders/stats")
@@ -90,16 +107,31 @@ public class AdminController {
 
         Map<String, Long> byStatus = new HashMap<>();
         long total = 0;
-        for (Object[] row : orderRepository.countGroupedByStatus()) {
-            String statusName = row[0].toString();
-            Long count = (Long) row[1];
-            byStatus.put(statusName, count);
-            total += count;
+        for (Map.Entry<OrderStatus, Long> entry : orderStatusCounter.currentCounts().entrySet()) {
+            if (entry.getValue() != 0) {
+                byStatus.put(entry.getKey().name(), entry.getValue());
+                total += entry.getValue();
+            }
         }
 
         return new OrderStatsDto(byStatus, total);
     }
 
+    /**
+     * Order activity per minute or hour in {@code [from, to)}: orders entering each status and their
+     * summed amount per currency (revenue is the PAID rows).
+     */
+    @GetMapping("/orders/rollups")
+    public List<OrderRollupDto> getOrderRollups(
+            @RequestHeader("X-Admin-Token") String token,
+            @RequestParam(defaultValue = "MINUTE") OrderRollupService.Granularity granularity,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) OrderStatus status) {
+        requireAdminToken(token);
+        return orderRollupService.query(granularity, from, to, status);
+    }
+
     @GetMapping("/dlq")
     public List<DlqQueueInfoDto> listDlqs(@RequestHeader("X-Admin-Token") String token) {
         requireAdminToken(token);
@@ -0,0 +1,66 @@
+package org.example.orderService.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CheckoutRequest {
+
+    public static final int MAX_LINES = 100;
+
+    @NotBlank(message = "Customer name is required")
+    private String customerName;
+
+    private String paymentMethod;
+
+    @NotEmpty(message = "At least one line is required")
+    @Size(max = MAX_LINES, message = "A checkout may contain at most " + MAX_LINES + " lines")
+    @Valid
+    private List<Line> lines = new ArrayList<>();
+
+    public CheckoutRequest() {}
+
+    public CheckoutRequest(String customerName, String paymentMethod, List<Line> lines) {
+        this.customerName = customerName;
+        this.paymentMethod = paymentMethod;
+        this.lines = lines;
+    }
+
+    public String getCustomerName() { return customerName; }
+    public void setCustomerName(String customerName) { this.customerName = customerName; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public List<Line> getLines() { return lines; }
+    public void setLines(List<Line> lines) { this.lines = lines; }
+
+    public static class Line {
+
+        @NotBlank(message = "Product ID is required")
+        private String productId;
+
+        @NotNull(message = "Quantity is required")
+        @Positive(message = "Quantity must be positive")
+        private Integer quantity;
+
+        public Line() {}
+
+        public Line(String productId, Integer quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public String getProductId() { return productId; }
+        public void setProductId(String productId) { this.productId = productId; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+}
@@ -0,0 +1,11 @@
+package org.example.orderService.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CheckoutResponse(
+        String checkoutId,
+        BigDecimal totalAmount,
+        String currency,
+        List<OrderResponse> orders
+) {}
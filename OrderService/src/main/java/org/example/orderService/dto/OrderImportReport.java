@@ -0,0 +1,28 @@
+package org.example.orderService.dto;
+
+import org.example.orderService.model.OrderImport;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record OrderImportReport(
+        String id,
+        OrderImport.Status status,
+        OrderImport.Format format,
+        long linesRead,
+        long ordersCreated,
+        long linesRejected,
+        List<String> errors,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        LocalDateTime finishedAt
+) {
+    public static OrderImportReport from(OrderImport job) {
+        List<String> errors = job.getErrors() == null || job.getErrors().isEmpty()
+                ? List.of()
+                : List.of(job.getErrors().split("\n"));
+        return new OrderImportReport(job.getId(), job.getStatus(), job.getFormat(), job.getLinesRead(),
+                job.getOrdersCreated(), job.getLinesRejected(), errors, job.getCreatedAt(), job.getUpdatedAt(),
+                job.getFinishedAt());
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.orderService.dto;
+
+import java.util.List;
+
+/**
+ * One page of an order listing; {@code nextCursor} is {@code null} on the last page.
+ */
+public record OrderPage(List<OrderResponse> items, String nextCursor) {
+}
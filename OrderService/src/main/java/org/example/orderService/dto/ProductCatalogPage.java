@@ -0,0 +1,13 @@
+package org.example.orderService.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * A page of ProductService's {@code GET /api/products/catalog} snapshot.
+ */
+public record ProductCatalogPage(List<Item> items, String nextCursor) {
+
+    public record Item(String id, String name, BigDecimal price) {
+    }
+}
@@ -0,0 +1,7 @@
+package org.example.orderService.dto.admin;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderRollupDto(LocalDateTime bucketStart, String status, String currency, long orderCount,
+                             BigDecimal amountSum) {}
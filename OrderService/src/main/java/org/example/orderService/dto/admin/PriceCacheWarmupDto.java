@@ -0,0 +1,2 @@
+package org.example.orderService.dto.admin;
+public record PriceCacheWarmupDto(String status, long productsLoaded, int pages, long durationMs) {}
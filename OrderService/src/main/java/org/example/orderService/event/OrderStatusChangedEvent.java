@@ -0,0 +1,108 @@
+package org.example.orderService.event;
+
+import org.example.common.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * An order was created, changed status or was deleted. Published as a Spring application event on the
+ * instance that made the change (after commit) and broadcast to the other OrderService instances, which
+ * republish it locally. {@code orderId} is {@code null} on the single broadcast that stands in for a
+ * batch of a user's new orders (checkout, bulk import); {@code status} is {@code null} when the order
+ * was deleted.
+ */
+public class OrderStatusChangedEvent {
+
+    private Long orderId;
+    private String username;
+    private OrderStatus status;
+    private String statusMessage;
+    private BigDecimal amount;
+    private String currency;
+    private String sourceNode;
+    private LocalDateTime updatedAt;
+
+    public OrderStatusChangedEvent() {
+    }
+
+    public OrderStatusChangedEvent(Long orderId, String username, OrderStatus status, String statusMessage,
+                                   BigDecimal amount, String currency, String sourceNode, LocalDateTime updatedAt) {
+        this.orderId = orderId;
+        this.username = username;
+        this.status = status;
+        this.statusMessage = statusMessage;
+        this.amount = amount;
+        this.currency = currency;
+        this.sourceNode = sourceNode;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public String getStatusMessage() {
+        return statusMessage;
+    }
+
+    public void setStatusMessage(String statusMessage) {
+        this.statusMessage = statusMessage;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public void setCurrency(String currency) {
+        this.currency = currency;
+    }
+
+    public String getSourceNode() {
+        return sourceNode;
+    }
+
+    public void setSourceNode(String sourceNode) {
+        this.sourceNode = sourceNode;
+    }
+
+    /**
+     * When the change was made, so consumers can order changes of one order; {@code null} for deletions
+     * and batch broadcasts.
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
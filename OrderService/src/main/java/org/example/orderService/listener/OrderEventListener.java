@@ -2,14 +2,11 @@ package org.example.orderService.listener;
 
 import org.example.common.event.StockReservationFailedEvent;
 import org.example.common.event.StockReservedEvent;
-import org.example.common.model.OrderStatus;
 import org.example.orderService.config.RabbitMQConfig;
 import org.example.orderService.service.OrderService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.example.orderService.repository.ProcessedEventRepository;
-import org.example.orderService.model.ProcessedEvent;
 import org.springframework.stereotype.Component;
 
 @Component
@@ -18,11 +15,9 @@ public class OrderEventListener {
     private static final Logger log = LoggerFactory.getLogger(OrderEventListener.class);
 
     private final OrderService orderService;
-    private final ProcessedEventRepository processedEventRepository;
 
-    public OrderEventListener(OrderService orderService, ProcessedEventRepository processedEventRepository) {
+    public OrderEventListener(OrderService orderService) {
         this.orderService = orderService;
-        this.processedEventRepository = processedEventRepository;
     }
 
     @RabbitListener(queues = RabbitMQConfig.STOCK_RESERVED_QUEUE)
@@ -43,20 +38,9 @@ public class OrderEventListener {
                 event.getOrderId(),
                 event.getReason());
 
-        if (event.getEventId() != null && processedEventRepository.existsById(event.getEventId())) {
-            log.info("Event {} already processed. Skipping.", event.getEventId());
-            return;
-        }
-
         try {
-            Long orderId = Long.parseLong(event.getOrderId());
-            orderService.updateOrderStatus(orderId, OrderStatus.FAILED);
-
-            if (event.getEventId() != null) {
-                processedEventRepository.save(new ProcessedEvent(event.getEventId()));
-            }
-
-            log.info("Order {} status updated to FAILED due to stock reservation failure.", orderId);
+            orderService.processStockReservationFailed(event);
+            log.info("Order {} status updated to FAILED due to stock reservation failure.", event.getOrderId());
         } catch (Exception e) {
             log.error("Failed to process StockReservationFailedEvent for order ID: {}", event.getOrderId(), e);
         }
@@ -2,32 +2,64 @@ package org.example.orderService.listener;
 
 import org.example.common.event.ProductUpdatedEvent;
 import org.example.orderService.config.RabbitMQConfig;
-import org.example.orderService.model.ProductPriceCache;
-import org.example.orderService.repository.ProductPriceCacheRepository;
+import org.example.orderService.service.ProductPriceResolver;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Consumes ProductUpdatedEvents in batches (see {@code productUpdatedBatchContainerFactory}). Updates to
+ * the same product within a batch collapse to the last one, and the batch is written to
+ * {@code product_price_cache} as one JDBC batch of upserts before the in-memory tier is updated, so a
+ * catalog-wide reprice costs one statement per product rather than a find and a save per message.
+ */
 @Component
 public class ProductUpdatedListener {
 
     private static final Logger log = LoggerFactory.getLogger(ProductUpdatedListener.class);
-    private final ProductPriceCacheRepository productPriceCacheRepository;
 
-    public ProductUpdatedListener(ProductPriceCacheRepository productPriceCacheRepository) {
-        this.productPriceCacheRepository = productPriceCacheRepository;
+    private static final String UPSERT = "INSERT INTO product_price_cache (product_id, name, price, updated_at) "
+            + "VALUES (?, ?, ?, ?) ON CONFLICT (product_id) DO UPDATE SET name = EXCLUDED.name, "
+            + "price = EXCLUDED.price, updated_at = EXCLUDED.updated_at";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductPriceResolver productPriceResolver;
+
+    public ProductUpdatedListener(JdbcTemplate jdbcTemplate, ProductPriceResolver productPriceResolver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productPriceResolver = productPriceResolver;
     }
 
-    @RabbitListener(queues = RabbitMQConfig.PRODUCT_UPDATED_QUEUE)
-    public void handleProductUpdated(ProductUpdatedEvent event) {
-        log.info("Received ProductUpdatedEvent for product id={}", event.getId());
-        ProductPriceCache cache = productPriceCacheRepository.findById(event.getId())
-                .orElse(new ProductPriceCache());
-        cache.setProductId(event.getId());
-        cache.setName(event.getName());
-        cache.setPrice(event.getPrice());
-        cache.setUpdatedAt(java.time.LocalDateTime.now());
-        productPriceCacheRepository.save(cache);
+    @RabbitListener(queues = RabbitMQConfig.PRODUCT_UPDATED_QUEUE, containerFactory = "productUpdatedBatchContainerFactory")
+    public void handleProductUpdates(List<ProductUpdatedEvent> events) {
+        Map<String, ProductUpdatedEvent> latest = new LinkedHashMap<>();
+        for (ProductUpdatedEvent event : events) {
+            if (event.getId() != null) {
+                latest.put(event.getId(), event);
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+
+        List<ProductUpdatedEvent> updates = new ArrayList<>(latest.values());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UPSERT, updates, updates.size(), (ps, event) -> {
+            ps.setString(1, event.getId());
+            ps.setString(2, event.getName());
+            ps.setBigDecimal(3, event.getPrice());
+            ps.setTimestamp(4, now);
+        });
+        updates.forEach(event -> productPriceResolver.update(event.getId(), event.getPrice()));
+        log.info("Applied {} ProductUpdatedEvents to {} cached product prices", events.size(), updates.size());
     }
 }
@@ -6,6 +6,7 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.persistence.Column;
 import jakarta.validation.constraints.NotBlank;
@@ -20,7 +21,8 @@ import java.time.LocalDateTime;
 @Table(name = "orders")
 public class OrderEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Customer name is required")
@@ -63,6 +65,9 @@ public class OrderEntity {
     @Column
     private String username;
 
+    @Column
+    private String checkoutId;
+
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
@@ -174,6 +179,14 @@ public class OrderEntity {
         this.username = username;
     }
 
+    public String getCheckoutId() {
+        return checkoutId;
+    }
+
+    public void setCheckoutId(String checkoutId) {
+        this.checkoutId = checkoutId;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,159 @@
+package org.example.orderService.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and result of a bulk order import. Counters are updated in the same transaction as each
+ * imported chunk, so a poller never sees orders that are not reflected here (or vice versa).
+ */
+@Entity
+@Table(name = "order_imports")
+public class OrderImport {
+
+    public enum Status {
+        CREATED, RUNNING, COMPLETED, FAILED
+    }
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    @Id
+    private String id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    @Enumerated(EnumType.STRING)
+    private Format format;
+
+    @Column(nullable = false)
+    private long linesRead;
+
+    @Column(nullable = false)
+    private long ordersCreated;
+
+    @Column(nullable = false)
+    private long linesRejected;
+
+    @Column(columnDefinition = "TEXT")
+    private String errors;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime finishedAt;
+
+    public OrderImport() {
+    }
+
+    public OrderImport(String id, String username) {
+        this.id = id;
+        this.username = username;
+        this.status = Status.CREATED;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public void setFormat(Format format) {
+        this.format = format;
+    }
+
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    public void setLinesRead(long linesRead) {
+        this.linesRead = linesRead;
+    }
+
+    public long getOrdersCreated() {
+        return ordersCreated;
+    }
+
+    public void setOrdersCreated(long ordersCreated) {
+        this.ordersCreated = ordersCreated;
+    }
+
+    public long getLinesRejected() {
+        return linesRejected;
+    }
+
+    public void setLinesRejected(long linesRejected) {
+        this.linesRejected = linesRejected;
+    }
+
+    public String getErrors() {
+        return errors;
+    }
+
+    public void setErrors(String errors) {
+        this.errors = errors;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 @Entity
@@ -22,8 +23,11 @@ public class OutboxEvent {
         INITIATE_PAYMENT
     }
 
+    // Not pooled: the partitioned relay orders an order's events by id, so ids must follow creation order
+    // across instances (see V19).
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_id_seq")
+    @SequenceGenerator(name = "outbox_events_id_seq", sequenceName = "outbox_events_id_seq", allocationSize = 1)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -49,14 +53,20 @@ public class OutboxEvent {
     @Column(nullable = false)
     private int retryCount;
 
-    private static final int MAX_RETRIES = 5;
+    public static final int MAX_RETRIES = 5;
 
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
     private LocalDateTime processedAt;
     private String errorMessage;
 
+    private String claimedBy;
+    private LocalDateTime leaseUntil;
+
     public OutboxEvent() {
     }
 
@@ -87,6 +97,7 @@ public class OutboxEvent {
         }
         event.setRetryCount(0);
         event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
         return event;
     }
 
@@ -106,6 +117,33 @@ public class OutboxEvent {
         }
         event.setRetryCount(0);
         event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
+        return event;
+    }
+
+    /**
+     * One ORDER_CREATED event for every line of a checkout. {@code orderId} is the first line's order, so
+     * the partitioned relay keeps the event in that order's partition.
+     */
+    public static OutboxEvent checkoutCreated(String checkoutId, List<org.example.common.event.OrderCreatedEvent.Line> lines) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(EventType.ORDER_CREATED);
+        event.setExchange(org.example.orderService.config.RabbitMQConfig.EXCHANGE_NAME);
+        event.setRoutingKey(org.example.orderService.config.RabbitMQConfig.ORDER_CREATED_ROUTING_KEY);
+        event.setStatus(EventStatus.PENDING);
+        event.setOrderId(Long.valueOf(lines.get(0).getOrderId()));
+        org.example.common.event.OrderCreatedEvent payloadEvent = new org.example.common.event.OrderCreatedEvent();
+        payloadEvent.setEventId(java.util.UUID.randomUUID().toString());
+        payloadEvent.setCheckoutId(checkoutId);
+        payloadEvent.setLines(lines);
+        try {
+            event.setPayload(MAPPER.writeValueAsString(payloadEvent));
+        } catch (Exception e) {
+            event.setPayload("{}");
+        }
+        event.setRetryCount(0);
+        event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
         return event;
     }
 
@@ -125,6 +163,7 @@ public class OutboxEvent {
         }
         event.setRetryCount(0);
         event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
         return event;
     }
 
@@ -144,6 +183,7 @@ public class OutboxEvent {
         }
         event.setRetryCount(0);
         event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
         return event;
     }
 
@@ -163,6 +203,7 @@ public class OutboxEvent {
         }
         event.setRetryCount(0);
         event.setCreatedAt(LocalDateTime.now());
+        event.setNextAttemptAt(event.getCreatedAt());
         return event;
     }
 
@@ -242,6 +283,14 @@ public class OutboxEvent {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
     public LocalDateTime getProcessedAt() {
         return processedAt;
     }
@@ -257,4 +306,20 @@ public class OutboxEvent {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
-}
\ No newline at end of file
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
+}
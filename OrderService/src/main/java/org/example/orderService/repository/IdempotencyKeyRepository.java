@@ -0,0 +1,41 @@
+package org.example.orderService.repository;
+
+import org.example.orderService.model.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    @Query("SELECT k FROM IdempotencyKey k WHERE k.scopedKey = :scopedKey AND k.expiresAt > :now")
+    Optional<IdempotencyKey> findUnexpired(@Param("scopedKey") String scopedKey, @Param("now") LocalDateTime now);
+
+    /**
+     * Records a key unless an unexpired record already exists; an expired one is overwritten. Must run in
+     * the transaction that writes the order. A concurrent insert of the same key from another instance
+     * blocks here until that transaction ends, then this returns 0.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_keys (scoped_key, request_hash, order_id, created_at, expires_at) "
+            + "VALUES (:scopedKey, :requestHash, :orderId, :now, :expiresAt) "
+            + "ON CONFLICT (scoped_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, "
+            + "order_id = EXCLUDED.order_id, created_at = EXCLUDED.created_at, expires_at = EXCLUDED.expires_at "
+            + "WHERE idempotency_keys.expires_at <= EXCLUDED.created_at", nativeQuery = true)
+    int insertIfAbsentOrExpired(@Param("scopedKey") String scopedKey,
+                                @Param("requestHash") String requestHash,
+                                @Param("orderId") Long orderId,
+                                @Param("now") LocalDateTime now,
+                                @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
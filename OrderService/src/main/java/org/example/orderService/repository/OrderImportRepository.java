@@ -0,0 +1,23 @@
+package org.example.orderService.repository;
+
+import org.example.orderService.model.OrderImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OrderImportRepository extends JpaRepository<OrderImport, String> {
+
+    /**
+     * Moves a CREATED import to RUNNING. Returns 0 if the import was already started, so the same body
+     * cannot be streamed into one import twice.
+     */
+    @Modifying
+    @Query("UPDATE OrderImport i SET i.status = 'RUNNING', i.format = :format, i.updatedAt = :now "
+            + "WHERE i.id = :id AND i.status = 'CREATED'")
+    int markRunning(@Param("id") String id, @Param("format") OrderImport.Format format, @Param("now") LocalDateTime now);
+}
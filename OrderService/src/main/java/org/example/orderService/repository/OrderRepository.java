@@ -1,22 +1,90 @@
 package org.example.orderService.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.common.model.OrderStatus;
+import org.example.orderService.dto.OrderResponse;
 import org.example.orderService.model.OrderEntity;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
-    List<OrderEntity> findByCustomerName(String customerName);
 
-    List<OrderEntity> findByStatus(OrderStatus status);
+    int EXPORT_FETCH_SIZE = 1000;
 
-    List<OrderEntity> findByProductId(String productId);
+    // Keyset pages, newest first: orders strictly before (createdAt, id), at most pageable.pageSize rows.
+    // Rows are projected straight into OrderResponse, so listings never hydrate or snapshot entities.
 
-    List<OrderEntity> findByUsername(String username);
+    String ORDER_RESPONSE_PROJECTION = "SELECT new org.example.orderService.dto.OrderResponse("
+            + "o.id, o.customerName, o.productId, o.quantity, o.totalPrice, o.status, o.statusMessage, "
+            + "o.paymentMethod, o.amount, o.currency, o.paymentTransactionId, o.username, o.createdAt, o.updatedAt) ";
+
+    @Query(ORDER_RESPONSE_PROJECTION + "FROM OrderEntity o WHERE (o.createdAt, o.id) < (:createdAt, :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderResponse> findPageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                     Pageable pageable);
+
+    @Query(ORDER_RESPONSE_PROJECTION + "FROM OrderEntity o WHERE o.customerName = :customerName "
+            + "AND (o.createdAt, o.id) < (:createdAt, :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderResponse> findPageByCustomerNameBefore(@Param("customerName") String customerName,
+                                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                   Pageable pageable);
+
+    @Query(ORDER_RESPONSE_PROJECTION + "FROM OrderEntity o WHERE o.status = :status "
+            + "AND (o.createdAt, o.id) < (:createdAt, :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderResponse> findPageByStatusBefore(@Param("status") OrderStatus status,
+                                             @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                             Pageable pageable);
+
+    @Query(ORDER_RESPONSE_PROJECTION + "FROM OrderEntity o WHERE o.productId = :productId "
+            + "AND (o.createdAt, o.id) < (:createdAt, :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderResponse> findPageByProductIdBefore(@Param("productId") String productId,
+                                                @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                Pageable pageable);
+
+    @Query(ORDER_RESPONSE_PROJECTION + "FROM OrderEntity o WHERE o.username = :username "
+            + "AND (o.createdAt, o.id) < (:createdAt, :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderResponse> findPageByUsernameBefore(@Param("username") String username,
+                                               @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                               Pageable pageable);
+
+    /**
+     * Forward-only stream for exports. Must be consumed inside a transaction so the PostgreSQL driver
+     * uses a server-side cursor and fetches {@value #EXPORT_FETCH_SIZE} rows at a time.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT o FROM OrderEntity o WHERE (:status IS NULL OR o.status = :status) "
+            + "AND o.createdAt >= :from AND o.createdAt < :to ORDER BY o.createdAt, o.id")
+    Stream<OrderEntity> streamForExport(@Param("status") OrderStatus status,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to);
+
+    @Query("SELECT o.status FROM OrderEntity o WHERE o.id = :id")
+    Optional<OrderStatus> findStatusById(@Param("id") Long id);
+
+    /**
+     * Records a payment that succeeded after order {@code id} was cancelled. Applies only while the order
+     * is CANCELLED and does not carry {@code transactionId} yet, so a redelivered result matches nothing.
+     */
+    @Modifying
+    @Query("UPDATE OrderEntity o SET o.paymentTransactionId = :transactionId WHERE o.id = :id "
+            + "AND o.status = org.example.common.model.OrderStatus.CANCELLED "
+            + "AND (o.paymentTransactionId IS NULL OR o.paymentTransactionId <> :transactionId)")
+    int recordPaymentAfterCancel(@Param("id") Long id, @Param("transactionId") String transactionId);
 
     @Query("SELECT o.status, COUNT(o) FROM OrderEntity o GROUP BY o.status")
     List<Object[]> countGroupedByStatus();
@@ -15,18 +15,77 @@ import java.util.List;
 @Repository
 public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
 
-    List<OutboxEvent> findByStatusOrderByCreatedAtAsc(OutboxEvent.EventStatus status, Pageable pageable);
+    /**
+     * PENDING events whose backoff has elapsed, skipping routing keys with an open circuit. Retried rows
+     * sort by their next attempt, so they no longer sit at the head of every page.
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PENDING' AND e.nextAttemptAt <= :now "
+            + "AND e.routingKey NOT IN :openRoutingKeys ORDER BY e.nextAttemptAt, e.id")
+    List<OutboxEvent> findDuePending(@Param("now") LocalDateTime now,
+                                     @Param("openRoutingKeys") Collection<String> openRoutingKeys,
+                                     Pageable pageable);
+
+    /**
+     * Leases the still-PENDING rows among {@code ids} to {@code owner} for {@code leaseSeconds}. Only the
+     * lease holder may settle a row, and only an expired lease makes it eligible for requeue.
+     */
+    @Query(value = "UPDATE outbox_events SET status = 'PROCESSING', claimed_by = :owner, "
+            + "lease_until = now() + make_interval(secs => :leaseSeconds) "
+            + "WHERE id IN (:ids) AND status = 'PENDING' RETURNING id", nativeQuery = true)
+    List<Long> claimPendingByIds(@Param("ids") Collection<Long> ids,
+                                 @Param("owner") String owner,
+                                 @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * Oldest due PENDING events whose order falls into one of {@code partitions}. Events queued behind an
+     * earlier event of the same order that is still in flight or backing off are left out, so an order's
+     * events are never published out of sequence.
+     */
+    @Query(value = "SELECT * FROM outbox_events e "
+            + "WHERE e.status = 'PENDING' AND e.next_attempt_at <= :now "
+            + "AND mod(e.order_id, :partitionCount) IN (:partitions) "
+            + "AND e.routing_key NOT IN (:openRoutingKeys) "
+            + "AND NOT EXISTS (SELECT 1 FROM outbox_events p "
+            + "  WHERE p.order_id = e.order_id AND p.status IN ('PENDING', 'PROCESSING') AND p.id < e.id) "
+            + "ORDER BY e.id LIMIT :limit", nativeQuery = true)
+    List<OutboxEvent> findPendingInPartitions(@Param("partitionCount") int partitionCount,
+                                              @Param("partitions") Collection<Integer> partitions,
+                                              @Param("now") LocalDateTime now,
+                                              @Param("openRoutingKeys") Collection<String> openRoutingKeys,
+                                              @Param("limit") int limit);
 
     @Modifying
-    @Query("UPDATE OutboxEvent e SET e.status = :newStatus WHERE e.id IN :ids")
-    int updateStatusForIds(@Param("newStatus") OutboxEvent.EventStatus newStatus, @Param("ids") Collection<Long> ids);
+    @Query("UPDATE OutboxEvent e SET e.status = :completed, e.processedAt = :processedAt, "
+            + "e.claimedBy = NULL, e.leaseUntil = NULL "
+            + "WHERE e.id IN :ids AND e.status = 'PROCESSING' AND e.claimedBy = :owner")
+    int markCompletedIfOwned(@Param("completed") OutboxEvent.EventStatus completed,
+                             @Param("processedAt") LocalDateTime processedAt,
+                             @Param("ids") Collection<Long> ids,
+                             @Param("owner") String owner);
 
     @Modifying
-    @Query("UPDATE OutboxEvent e SET e.status = :newStatus, e.processedAt = :processedAt WHERE e.id IN :ids")
-    int updateStatusAndProcessedAtForIds(@Param("newStatus") OutboxEvent.EventStatus newStatus, @Param("processedAt") LocalDateTime processedAt, @Param("ids") Collection<Long> ids);
+    @Query("UPDATE OutboxEvent e SET e.status = :newStatus, e.retryCount = :retryCount, e.errorMessage = :error, "
+            + "e.nextAttemptAt = :nextAttemptAt, e.claimedBy = NULL, e.leaseUntil = NULL "
+            + "WHERE e.id = :id AND e.status = 'PROCESSING' AND e.claimedBy = :owner")
+    int recordFailedAttemptIfOwned(@Param("newStatus") OutboxEvent.EventStatus newStatus,
+                                   @Param("retryCount") int retryCount,
+                                   @Param("error") String error,
+                                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                                   @Param("id") Long id,
+                                   @Param("owner") String owner);
 
-    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PROCESSING' AND e.createdAt < :threshold")
-    List<OutboxEvent> findStuckProcessingEvents(@Param("threshold") LocalDateTime threshold);
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = 'PROCESSING' "
+            + "AND (e.leaseUntil IS NULL OR e.leaseUntil < CURRENT_TIMESTAMP)")
+    List<OutboxEvent> findExpiredProcessingEvents();
+
+    /**
+     * Returns PROCESSING rows whose lease has expired to PENDING. A row whose holder is still within its
+     * lease is left alone, however old the row is.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :pending, e.claimedBy = NULL, e.leaseUntil = NULL "
+            + "WHERE e.status = 'PROCESSING' AND (e.leaseUntil IS NULL OR e.leaseUntil < CURRENT_TIMESTAMP)")
+    int requeueExpiredProcessingEvents(@Param("pending") OutboxEvent.EventStatus pending);
 
     @Modifying
     @Query("DELETE FROM OutboxEvent e WHERE e.status IN :statuses AND e.createdAt < :cutoff")
@@ -37,8 +96,9 @@ public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long>
     @Query("SELECT e.status, COUNT(e) FROM OutboxEvent e GROUP BY e.status")
     List<Object[]> countGroupedByStatus();
 
-    @Query("SELECT COUNT(e) FROM OutboxEvent e WHERE e.status = 'PROCESSING' AND e.createdAt < :threshold")
-    long countStuckProcessingEvents(@Param("threshold") LocalDateTime threshold);
+    @Query("SELECT COUNT(e) FROM OutboxEvent e WHERE e.status = 'PROCESSING' "
+            + "AND (e.leaseUntil IS NULL OR e.leaseUntil < CURRENT_TIMESTAMP)")
+    long countExpiredProcessingEvents();
 
     long countByStatus(OutboxEvent.EventStatus status);
 }
@@ -11,6 +11,16 @@ import java.time.LocalDateTime;
 
 public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
 
+    /**
+     * Records {@code eventId} as processed before its handler runs, in the handler's transaction. Returns 0
+     * if the id is already recorded; a concurrent delivery of the same event blocks here until the first
+     * one commits or rolls back, so exactly one handler proceeds.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO processed_events (event_id, processed_at) VALUES (:eventId, now()) "
+            + "ON CONFLICT (event_id) DO NOTHING", nativeQuery = true)
+    int markProcessed(@Param("eventId") String eventId);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM ProcessedEvent p WHERE p.processedAt < :threshold")
@@ -2,8 +2,26 @@ package org.example.orderService.repository;
 
 import org.example.orderService.model.ProductPriceCache;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
 
 @Repository
 public interface ProductPriceCacheRepository extends JpaRepository<ProductPriceCache, String> {
+
+    /**
+     * Writes back a price fetched from ProductService without overwriting a row that a
+     * ProductUpdatedEvent may have stored in the meantime.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO product_price_cache (product_id, name, price, updated_at) "
+            + "VALUES (:productId, :name, :price, now()) ON CONFLICT (product_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("productId") String productId,
+                       @Param("name") String name,
+                       @Param("price") BigDecimal price);
 }
@@ -0,0 +1,33 @@
+package org.example.orderService.scheduler;
+
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.example.orderService.repository.IdempotencyKeyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+@Component
+public class IdempotencyKeyCleanupScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyKeyCleanupScheduler.class);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    public IdempotencyKeyCleanupScheduler(IdempotencyKeyRepository idempotencyKeyRepository) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+    }
+
+    @Scheduled(cron = "0 30 * * * ?")
+    @SchedulerLock(name = "IdempotencyKeyCleanup", lockAtLeastFor = "1m", lockAtMostFor = "10m")
+    public void deleteExpiredKeys() {
+        try {
+            int deleted = idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+            log.info("Deleted {} expired idempotency keys", deleted);
+        } catch (Exception e) {
+            log.error("Failed to delete expired idempotency keys", e);
+        }
+    }
+}
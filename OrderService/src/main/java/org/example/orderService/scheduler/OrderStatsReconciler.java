@@ -0,0 +1,92 @@
+package org.example.orderService.scheduler;
+
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.example.orderService.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Corrects drift in {@code order_status_counts} (manual SQL, a missed code path) by recounting orders.
+ * Orders and their counters change in the same transaction, so counting both in one repeatable-read
+ * snapshot yields the exact drift as of that snapshot without locking anything. The drift is then added
+ * to slot 0 as {@code count = count + drift}, which commutes with the increments writers made since the
+ * snapshot; writers only ever wait on that single-row upsert, never on the scan.
+ */
+@Component
+public class OrderStatsReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatsReconciler.class);
+
+    private static final String ADD_TO_SLOT_ZERO = "INSERT INTO order_status_counts (status, slot, count) "
+            + "VALUES (?, 0, ?) ON CONFLICT (status, slot) DO UPDATE SET count = order_status_counts.count + EXCLUDED.count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderRepository orderRepository;
+
+    public OrderStatsReconciler(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                OrderRepository orderRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.snapshotTemplate.setReadOnly(true);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderRepository = orderRepository;
+    }
+
+    @Scheduled(cron = "${order-stats.reconcile-cron:0 30 4 * * ?}")
+    @SchedulerLock(name = "OrderStatsReconciler", lockAtLeastFor = "1m", lockAtMostFor = "30m")
+    public void reconcile() {
+        try {
+            Map<String, Long> corrections = snapshotTemplate.execute(status -> drift());
+            if (corrections.isEmpty()) {
+                log.info("Order status counters are in sync with orders");
+            } else {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(ADD_TO_SLOT_ZERO,
+                        corrections.entrySet(), corrections.size(), (ps, entry) -> {
+                            ps.setString(1, entry.getKey());
+                            ps.setLong(2, entry.getValue());
+                        }));
+                log.warn("Corrected drifted order status counters (status -> drift): {}", corrections);
+            }
+        } catch (Exception e) {
+            log.error("Order status counter reconciliation failed", e);
+        }
+    }
+
+    /** Orders minus counters per status, both read from the same snapshot. */
+    private Map<String, Long> drift() {
+        Map<String, Long> actual = new HashMap<>();
+        for (Object[] row : orderRepository.countGroupedByStatus()) {
+            actual.put(row[0].toString(), (Long) row[1]);
+        }
+        Map<String, Long> counted = new HashMap<>();
+        jdbcTemplate.query("SELECT status, SUM(count) FROM order_status_counts GROUP BY status",
+                rs -> { counted.put(rs.getString(1), rs.getLong(2)); });
+
+        Map<String, Long> drift = new HashMap<>();
+        actual.forEach((status, count) -> {
+            long diff = count - counted.getOrDefault(status, 0L);
+            if (diff != 0) {
+                drift.put(status, diff);
+            }
+        });
+        counted.forEach((status, count) -> {
+            if (!actual.containsKey(status) && count != 0) {
+                drift.put(status, -count);
+            }
+        });
+        return drift;
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.orderService.scheduler;
+
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.example.orderService.model.OutboxEvent;
+import org.example.orderService.repository.OutboxEventRepository;
+import org.example.orderService.repository.ProcessedEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Maintains the daily range partitions of {@code outbox_events} (see V10 migration). Future partitions
+ * are created ahead of time so inserts never fall into the default partition, and retention detaches and
+ * drops whole partitions instead of deleting rows. An outbox partition that still holds PENDING or
+ * PROCESSING rows is kept until they settle. {@code processed_events} stays unpartitioned so
+ * {@code event_id} remains unique (V18); retention deletes its expired rows.
+ */
+@Component
+public class PartitionMaintenanceScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceScheduler.class);
+
+    public static final int OUTBOX_RETENTION_DAYS = 7;
+    public static final int PROCESSED_EVENT_RETENTION_DAYS = 7;
+
+    private static final String OUTBOX_TABLE = "outbox_events";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ProcessedEventRepository processedEventRepository;
+    private final int premakeDays;
+
+    public PartitionMaintenanceScheduler(JdbcTemplate jdbcTemplate,
+                                         PlatformTransactionManager transactionManager,
+                                         OutboxEventRepository outboxEventRepository,
+                                         ProcessedEventRepository processedEventRepository,
+                                         @Value("${partitioning.premake-days:7}") int premakeDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.outboxEventRepository = outboxEventRepository;
+        this.processedEventRepository = processedEventRepository;
+        this.premakeDays = premakeDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createPartitionsOnStartup() {
+        createFuturePartitions();
+    }
+
+    @Scheduled(cron = "0 15 * * * ?")
+    @SchedulerLock(name = "PartitionMaintenance_createFuture", lockAtLeastFor = "1m", lockAtMostFor = "10m")
+    public void createFuturePartitions() {
+        LocalDate today = LocalDate.now();
+        for (int offset = 0; offset <= premakeDays; offset++) {
+            LocalDate day = today.plusDays(offset);
+            createPartition(OUTBOX_TABLE, day);
+        }
+    }
+
+    @Scheduled(cron = "0 0 3 * * ?")
+    @SchedulerLock(name = "PartitionMaintenance_retention", lockAtLeastFor = "1m", lockAtMostFor = "30m")
+    public void dropExpiredPartitions() {
+        LocalDate outboxCutoff = LocalDate.now().minusDays(OUTBOX_RETENTION_DAYS);
+        LocalDate processedCutoff = LocalDate.now().minusDays(PROCESSED_EVENT_RETENTION_DAYS);
+
+        int droppedOutbox = 0;
+        for (String partition : partitionsEndingBefore(OUTBOX_TABLE, outboxCutoff)) {
+            if (hasUnsettledOutboxRows(partition)) {
+                log.warn("Keeping outbox partition {}: it still holds PENDING or PROCESSING events", partition);
+                continue;
+            }
+            dropPartition(OUTBOX_TABLE, partition);
+            droppedOutbox++;
+        }
+
+        // Whatever is left behind the cutoff lives in kept or default partitions and is small.
+        Integer purgedOutbox = transactionTemplate.execute(status -> outboxEventRepository.deleteOldTerminalEvents(
+                List.of(OutboxEvent.EventStatus.COMPLETED, OutboxEvent.EventStatus.FAILED),
+                outboxCutoff.atStartOfDay()));
+        int purgedProcessed = processedEventRepository.deleteByProcessedAtBefore(processedCutoff.atStartOfDay());
+
+        log.info("Partition retention completed: dropped {} outbox partitions, purged {} outbox rows "
+                        + "outside daily partitions and {} processed events",
+                droppedOutbox, purgedOutbox, purgedProcessed);
+    }
+
+    private void createPartition(String table, LocalDate day) {
+        String partition = table + "_p" + day.format(SUFFIX);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + table
+                    + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+        } catch (Exception e) {
+            log.error("Failed to create partition {} of {}: {}", partition, table, e.getMessage());
+        }
+    }
+
+    /**
+     * Daily partitions of {@code table} whose whole range lies before {@code cutoff}. Only partitions
+     * following the {@code <table>_pYYYYMMDD} naming are considered, so the default partition is never
+     * returned.
+     */
+    private List<String> partitionsEndingBefore(String table, LocalDate cutoff) {
+        List<String> children = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? ORDER BY c.relname",
+                String.class, table);
+        String prefix = table + "_p";
+        return children.stream()
+                .filter(name -> name.startsWith(prefix))
+                .filter(name -> {
+                    try {
+                        LocalDate day = LocalDate.parse(name.substring(prefix.length()), SUFFIX);
+                        return !day.plusDays(1).isAfter(cutoff);
+                    } catch (DateTimeParseException e) {
+                        return false;
+                    }
+                })
+                .toList();
+    }
+
+    private boolean hasUnsettledOutboxRows(String partition) {
+        Boolean unsettled = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM " + partition
+                + " WHERE status IN ('PENDING', 'PROCESSING'))", Boolean.class);
+        return Boolean.TRUE.equals(unsettled);
+    }
+
+    private void dropPartition(String table, String partition) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            });
+            log.info("Dropped partition {} of {}", partition, table);
+        } catch (Exception e) {
+            log.error("Failed to drop partition {} of {}: {}", partition, table, e.getMessage());
+        }
+    }
+}
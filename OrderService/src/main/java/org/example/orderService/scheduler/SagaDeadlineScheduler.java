@@ -0,0 +1,159 @@
+package org.example.orderService.scheduler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.event.OrderStatusChangedEvent;
+import org.example.orderService.model.OrderEntity;
+import org.example.orderService.service.OrderStateMachine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cancels orders stuck in a saga stage: PENDING (waiting for the stock reservation) for longer than
+ * {@code saga.deadline.pending-seconds}, or STOCK_RESERVED (waiting for the payment result) for longer
+ * than {@code saga.deadline.stock-reserved-seconds}. Cancelling a STOCK_RESERVED order releases its
+ * stock through the outbox (see {@link OrderStateMachine}); a reservation that arrives after a PENDING
+ * order was cancelled is released when it arrives.
+ * <p>
+ * Deadlines live in a {@link TimingWheel} fed by {@link OrderStatusChangedEvent}s, local and broadcast
+ * by other instances, and rebuilt from {@code orders} on startup; the wheel turns every
+ * {@code saga.deadline.tick-ms}, so no query looks for expired orders. Every instance tracks the
+ * orders it hears about, so a deadline may fire on several instances: the cancellation only applies
+ * while the order is still in the stage, so exactly one of them wins. Expired deadlines are counted in
+ * {@code orders.saga.deadlines.expired} by stage.
+ */
+@Component
+public class SagaDeadlineScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(SagaDeadlineScheduler.class);
+
+    private static final long RETRY_DELAY_MILLIS = 30_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderStateMachine orderStateMachine;
+    private final Map<OrderStatus, Duration> timeouts = new EnumMap<>(OrderStatus.class);
+    private final Map<OrderStatus, Counter> expired = new EnumMap<>(OrderStatus.class);
+    private final TimingWheel<OrderStatus> wheel;
+
+    public SagaDeadlineScheduler(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 OrderStateMachine orderStateMachine,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${saga.deadline.pending-seconds:300}") long pendingSeconds,
+                                 @Value("${saga.deadline.stock-reserved-seconds:900}") long stockReservedSeconds,
+                                 @Value("${saga.deadline.tick-ms:1000}") long tickMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.orderStateMachine = orderStateMachine;
+        timeouts.put(OrderStatus.PENDING, Duration.ofSeconds(pendingSeconds));
+        timeouts.put(OrderStatus.STOCK_RESERVED, Duration.ofSeconds(stockReservedSeconds));
+        for (OrderStatus stage : timeouts.keySet()) {
+            expired.put(stage, Counter.builder("orders.saga.deadlines.expired")
+                    .description("Orders cancelled because they stayed in a saga stage past its deadline")
+                    .tag("stage", stage.name())
+                    .register(meterRegistry));
+        }
+        // 64 buckets per level, three levels: 2^18 ticks (about three days at one tick per second).
+        this.wheel = new TimingWheel<>(tickMillis, 6, 3, System.currentTimeMillis());
+        Gauge.builder("orders.saga.deadlines.tracked", this, scheduler -> scheduler.trackedCount())
+                .description("Orders with a pending saga deadline on this instance")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int[] loaded = {0};
+        jdbcTemplate.query("SELECT id, status, COALESCE(updated_at, created_at) FROM orders "
+                        + "WHERE status IN ('PENDING', 'STOCK_RESERVED')",
+                rs -> {
+                    Timestamp since = rs.getTimestamp(3);
+                    track(rs.getLong(1), OrderStatus.valueOf(rs.getString(2)),
+                            since == null ? System.currentTimeMillis() : since.getTime());
+                    loaded[0]++;
+                });
+        log.info("Saga deadlines rebuilt for {} in-flight orders", loaded[0]);
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOrderId() == null) {
+            return;
+        }
+        if (event.getStatus() != null && timeouts.containsKey(event.getStatus())) {
+            track(event.getOrderId(), event.getStatus(), System.currentTimeMillis());
+        } else {
+            synchronized (wheel) {
+                wheel.cancel(event.getOrderId());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${saga.deadline.tick-ms:1000}")
+    public void fireDueDeadlines() {
+        List<TimingWheel.Expired<OrderStatus>> due;
+        synchronized (wheel) {
+            due = wheel.advance(System.currentTimeMillis());
+        }
+        for (TimingWheel.Expired<OrderStatus> deadline : due) {
+            cancel(deadline.key(), deadline.value());
+        }
+    }
+
+    private void cancel(long orderId, OrderStatus stage) {
+        String reason = "Cancelled: no progress from " + stage + " within " + timeouts.get(stage).toSeconds() + "s";
+        try {
+            Optional<OrderEntity> cancelled = transactionTemplate.execute(status ->
+                    orderStateMachine.transitionFrom(orderId, stage, OrderStatus.CANCELLED, reason));
+            if (cancelled != null && cancelled.isPresent()) {
+                expired.get(stage).increment();
+                log.warn("Order {} passed its {} deadline and was cancelled", orderId, stage);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to cancel order {} after its {} deadline, retrying in {} ms: {}",
+                    orderId, stage, RETRY_DELAY_MILLIS, e.getMessage());
+            synchronized (wheel) {
+                if (wheel.get(orderId) == null) {
+                    wheel.schedule(orderId, stage, System.currentTimeMillis() + RETRY_DELAY_MILLIS);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stages only move forward, so an event for an earlier stage than the tracked one is a late
+     * broadcast and is ignored.
+     */
+    private void track(long orderId, OrderStatus stage, long sinceMillis) {
+        long deadline = sinceMillis + timeouts.get(stage).toMillis();
+        synchronized (wheel) {
+            OrderStatus tracked = wheel.get(orderId);
+            if (tracked == null || tracked.ordinal() < stage.ordinal()) {
+                wheel.schedule(orderId, stage, deadline);
+            }
+        }
+    }
+
+    private int trackedCount() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.orderService.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel keyed by a {@code long} id. Level {@code l} has {@code slots} buckets of
+ * {@code slots^l} ticks each; a deadline is filed on the lowest level whose span covers it and cascades
+ * down a level each time the wheel reaches its bucket, so scheduling, cancelling and each tick are O(1)
+ * apart from the entries actually moved. Deadlines beyond the top level wait in an overflow list that is
+ * re-filed whenever the top level turns.
+ * <p>
+ * Not thread-safe; callers synchronize.
+ */
+final class TimingWheel<V> {
+
+    record Expired<V>(long key, V value) {}
+
+    private static final class Entry<V> {
+        private final long key;
+        private final V value;
+        private final long deadlineTick;
+        private boolean cancelled;
+
+        Entry(long key, V value, long deadlineTick) {
+            this.key = key;
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+
+    private final long tickMillis;
+    private final int bits;
+    private final int mask;
+    private final List<Entry<V>>[][] buckets;
+    private final List<Entry<V>> overflow = new ArrayList<>();
+    private final Map<Long, Entry<V>> entries = new HashMap<>();
+    private long currentTick;
+
+    /**
+     * @param slotBits log2 of the buckets per level
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(long tickMillis, int slotBits, int levels, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.bits = slotBits;
+        this.mask = (1 << slotBits) - 1;
+        this.buckets = new List[levels][1 << slotBits];
+        for (List<Entry<V>>[] level : buckets) {
+            for (int slot = 0; slot < level.length; slot++) {
+                level[slot] = new ArrayList<>();
+            }
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    V get(long key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Schedules {@code key} at {@code deadlineMillis}, replacing any deadline it already had. A deadline
+     * that is already due fires on the next {@link #advance}.
+     */
+    void schedule(long key, V value, long deadlineMillis) {
+        cancel(key);
+        Entry<V> entry = new Entry<>(key, value, Math.max(deadlineMillis / tickMillis, currentTick + 1));
+        entries.put(key, entry);
+        file(entry);
+    }
+
+    void cancel(long key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            entry.cancelled = true;
+        }
+    }
+
+    /**
+     * Turns the wheel up to {@code nowMillis} and returns the deadlines that passed, tick by tick.
+     */
+    List<Expired<V>> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Expired<V>> expired = new ArrayList<>();
+        while (currentTick < targetTick) {
+            currentTick++;
+            for (int level = buckets.length - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (bits * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            List<Entry<V>> due = buckets[0][(int) (currentTick & mask)];
+            for (Entry<V> entry : due) {
+                if (!entry.cancelled) {
+                    entries.remove(entry.key);
+                    expired.add(new Expired<>(entry.key, entry.value));
+                }
+            }
+            due.clear();
+        }
+        return expired;
+    }
+
+    private void cascade(int level) {
+        List<Entry<V>> bucket = buckets[level][(int) ((currentTick >>> (bits * level)) & mask)];
+        List<Entry<V>> moved = new ArrayList<>(bucket);
+        bucket.clear();
+        if (level == buckets.length - 1 && !overflow.isEmpty()) {
+            moved.addAll(overflow);
+            overflow.clear();
+        }
+        for (Entry<V> entry : moved) {
+            if (!entry.cancelled) {
+                file(entry);
+            }
+        }
+    }
+
+    private void file(Entry<V> entry) {
+        long ticks = entry.deadlineTick - currentTick;
+        for (int level = 0; level < buckets.length; level++) {
+            if (ticks < 1L << (bits * (level + 1))) {
+                if (level == 0 && ticks <= 0) {
+                    // Cascaded onto the current tick, whose bucket is drained right after.
+                    buckets[0][(int) (currentTick & mask)].add(entry);
+                } else {
+                    buckets[level][(int) ((entry.deadlineTick >>> (bits * level)) & mask)].add(entry);
+                }
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+}
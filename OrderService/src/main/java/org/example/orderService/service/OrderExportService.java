@@ -0,0 +1,160 @@
+package org.example.orderService.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import jakarta.persistence.EntityManager;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.model.OrderEntity;
+import org.example.orderService.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams orders to an output stream as NDJSON or CSV, oldest first. Rows come from a forward-only
+ * cursor in a read-only transaction and are written as they arrive; the persistence context is cleared
+ * every {@link OrderRepository#EXPORT_FETCH_SIZE} rows, so memory stays flat regardless of how many
+ * orders match.
+ */
+@Service
+public class OrderExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private static final LocalDateTime MIN_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CSV_HEADER = "id,customerName,productId,quantity,totalPrice,status,statusMessage,"
+            + "paymentMethod,amount,currency,paymentTransactionId,username,checkoutId,createdAt,updatedAt";
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private final OrderRepository orderRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public OrderExportService(OrderRepository orderRepository,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes every order matching the filters to {@code out}. {@code status}, {@code from} (inclusive)
+     * and {@code to} (exclusive) are optional.
+     *
+     * @return the number of orders written
+     */
+    public long export(Format format, OrderStatus status, LocalDateTime from, LocalDateTime to, OutputStream out) {
+        LocalDateTime lower = from != null ? from : MIN_CREATED_AT;
+        LocalDateTime upper = to != null ? to : MAX_CREATED_AT;
+        Long written = readOnlyTransaction.execute(tx -> {
+            try (Stream<OrderEntity> orders = orderRepository.streamForExport(status, lower, upper)) {
+                return format == Format.CSV ? writeCsv(orders.iterator(), out) : writeNdjson(orders.iterator(), out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} orders as {} (status={}, from={}, to={})", written, format, status, from, to);
+        return written == null ? 0 : written;
+    }
+
+    private long writeNdjson(Iterator<OrderEntity> orders, OutputStream out) throws IOException {
+        long count = 0;
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.setRootValueSeparator(null);
+            while (orders.hasNext()) {
+                OrderEntity order = orders.next();
+                json.writeStartObject();
+                json.writeNumberField("id", order.getId());
+                json.writeStringField("customerName", order.getCustomerName());
+                json.writeStringField("productId", order.getProductId());
+                writeNumber(json, "quantity", order.getQuantity() == null ? null : BigDecimal.valueOf(order.getQuantity()));
+                writeNumber(json, "totalPrice", order.getTotalPrice());
+                json.writeStringField("status", order.getStatus() == null ? null : order.getStatus().name());
+                json.writeStringField("statusMessage", order.getStatusMessage());
+                json.writeStringField("paymentMethod", order.getPaymentMethod());
+                writeNumber(json, "amount", order.getAmount());
+                json.writeStringField("currency", order.getCurrency());
+                json.writeStringField("paymentTransactionId", order.getPaymentTransactionId());
+                json.writeStringField("username", order.getUsername());
+                json.writeStringField("checkoutId", order.getCheckoutId());
+                json.writeStringField("createdAt", toText(order.getCreatedAt()));
+                json.writeStringField("updatedAt", toText(order.getUpdatedAt()));
+                json.writeEndObject();
+                json.writeRaw('\n');
+                if (++count % OrderRepository.EXPORT_FETCH_SIZE == 0) {
+                    json.flush();
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<OrderEntity> orders, OutputStream out) throws IOException {
+        long count = 0;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        while (orders.hasNext()) {
+            OrderEntity order = orders.next();
+            writer.write(String.join(",",
+                    csv(order.getId()), csv(order.getCustomerName()), csv(order.getProductId()),
+                    csv(order.getQuantity()), csv(order.getTotalPrice()), csv(order.getStatus()),
+                    csv(order.getStatusMessage()), csv(order.getPaymentMethod()), csv(order.getAmount()),
+                    csv(order.getCurrency()), csv(order.getPaymentTransactionId()), csv(order.getUsername()),
+                    csv(order.getCheckoutId()), csv(order.getCreatedAt()), csv(order.getUpdatedAt())));
+            writer.write('\n');
+            if (++count % OrderRepository.EXPORT_FETCH_SIZE == 0) {
+                writer.flush();
+                entityManager.clear();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeNumber(JsonGenerator json, String field, BigDecimal value) throws IOException {
+        if (value == null) {
+            json.writeNullField(field);
+        } else {
+            json.writeNumberField(field, value);
+        }
+    }
+
+    private static String toText(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.orderService.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.common.exception.InvalidOperationException;
+import org.example.common.exception.ResourceNotFoundException;
+import org.example.orderService.dto.OrderResponse;
+import org.example.orderService.mapper.OrderMapper;
+import org.example.orderService.model.IdempotencyKey;
+import org.example.orderService.repository.IdempotencyKeyRepository;
+import org.example.orderService.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Deduplicates {@code POST /api/orders} calls carrying an {@code Idempotency-Key} header. Keys are scoped
+ * per user and looked up in three places, cheapest first:
+ * <ol>
+ *   <li>a bounded in-memory cache of completed responses;</li>
+ *   <li>the in-flight call for the same key on this instance, whose result concurrent duplicates wait for
+ *       instead of creating a second order;</li>
+ *   <li>the {@code idempotency_keys} table, which is written in the order's own transaction (see
+ *       {@link #record}) and therefore also catches duplicates that hit another instance.</li>
+ * </ol>
+ * Reusing a key with a different request body is rejected. Keys expire after
+ * {@code idempotency.ttl-hours}.
+ */
+@Component
+public class OrderIdempotencyStore {
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderRepository orderRepository;
+    private final OrderMapper orderMapper;
+    private final Duration ttl;
+    private final long waitTimeoutMs;
+    private final Cache<String, Completed> completed;
+    private final ConcurrentHashMap<String, CompletableFuture<Completed>> inFlight = new ConcurrentHashMap<>();
+    private final Counter memoryReplays;
+    private final Counter inFlightReplays;
+    private final Counter databaseReplays;
+
+    public OrderIdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository,
+                                 OrderRepository orderRepository,
+                                 OrderMapper orderMapper,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${idempotency.ttl-hours:24}") long ttlHours,
+                                 @Value("${idempotency.memory.max-size:100000}") long memoryMaxSize,
+                                 @Value("${idempotency.wait-timeout-ms:10000}") long waitTimeoutMs) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(memoryMaxSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.memoryReplays = replayCounter(meterRegistry, "memory");
+        this.inFlightReplays = replayCounter(meterRegistry, "in-flight");
+        this.databaseReplays = replayCounter(meterRegistry, "database");
+    }
+
+    private static Counter replayCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("orders.idempotency.replays")
+                .description("Duplicate order submissions answered from a stored Idempotency-Key result")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the response stored for {@code key}, or runs {@code create} to produce it. {@code create}
+     * receives the scoped key and must call {@link #record} inside the transaction that writes the order.
+     */
+    public OrderResponse execute(String username, String key, String requestHash,
+                                 Function<String, OrderResponse> create) {
+        String scopedKey = username + ":" + key;
+        while (true) {
+            Completed done = completed.getIfPresent(scopedKey);
+            if (done != null) {
+                memoryReplays.increment();
+                return done.responseFor(requestHash);
+            }
+
+            CompletableFuture<Completed> mine = new CompletableFuture<>();
+            CompletableFuture<Completed> running = inFlight.putIfAbsent(scopedKey, mine);
+            if (running != null) {
+                Completed result = await(running);
+                if (result != null) {
+                    inFlightReplays.increment();
+                    return result.responseFor(requestHash);
+                }
+                // The first attempt failed without recording the key; the next one is ours to run.
+                continue;
+            }
+
+            Completed result;
+            try {
+                result = loadOrCreate(scopedKey, requestHash, create);
+            } catch (RuntimeException e) {
+                inFlight.remove(scopedKey, mine);
+                mine.complete(null);
+                throw e;
+            }
+            completed.put(scopedKey, result);
+            inFlight.remove(scopedKey, mine);
+            mine.complete(result);
+            return result.responseFor(requestHash);
+        }
+    }
+
+    /**
+     * Records {@code scopedKey} for {@code orderId}. Must be called inside the order's transaction; throws
+     * {@link KeyAlreadyRecordedException} (rolling the order back) if the key was recorded concurrently.
+     */
+    public void record(String scopedKey, String requestHash, Long orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        int inserted = idempotencyKeyRepository.insertIfAbsentOrExpired(
+                scopedKey, requestHash, orderId, now, now.plus(ttl));
+        if (inserted == 0) {
+            throw new KeyAlreadyRecordedException(scopedKey);
+        }
+    }
+
+    private Completed loadOrCreate(String scopedKey, String requestHash, Function<String, OrderResponse> create) {
+        Optional<Completed> stored = loadStored(scopedKey);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+        try {
+            return new Completed(requestHash, create.apply(scopedKey));
+        } catch (KeyAlreadyRecordedException e) {
+            return loadStored(scopedKey).orElseThrow(() ->
+                    new IllegalStateException("Idempotency key " + scopedKey + " was recorded but cannot be read"));
+        }
+    }
+
+    private Optional<Completed> loadStored(String scopedKey) {
+        Optional<IdempotencyKey> stored = idempotencyKeyRepository.findUnexpired(scopedKey, LocalDateTime.now());
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        databaseReplays.increment();
+        Long orderId = stored.get().getOrderId();
+        OrderResponse response = orderRepository.findById(orderId)
+                .map(orderMapper::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+        return Optional.of(new Completed(stored.get().getRequestHash(), response));
+    }
+
+    private Completed await(CompletableFuture<Completed> running) {
+        try {
+            return running.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new InvalidOperationException("A request with this Idempotency-Key is still being processed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidOperationException("Interrupted while waiting for a request with the same Idempotency-Key");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * SHA-256 over the given request fields, used to detect a key being reused for a different request.
+     */
+    public static String requestHash(Object... fields) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object field : fields) {
+                digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Completed(String requestHash, OrderResponse response) {
+        OrderResponse responseFor(String requestHash) {
+            if (!this.requestHash.equals(requestHash)) {
+                throw new InvalidOperationException("Idempotency-Key was already used for a different request");
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Thrown from {@link #record} when another transaction recorded the same key first.
+     */
+    public static class KeyAlreadyRecordedException extends RuntimeException {
+        public KeyAlreadyRecordedException(String scopedKey) {
+            super("Idempotency key already recorded: " + scopedKey);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package org.example.orderService.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.common.exception.InvalidOperationException;
+import org.example.common.exception.ResourceNotFoundException;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.dto.OrderImportReport;
+import org.example.orderService.model.OrderEntity;
+import org.example.orderService.model.OrderImport;
+import org.example.orderService.model.OutboxEvent;
+import org.example.orderService.repository.OrderImportRepository;
+import org.example.orderService.repository.OrderRepository;
+import org.example.orderService.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bulk order import from NDJSON or CSV. The body is read line by line and handled in chunks of
+ * {@code orders.import.chunk-size} lines: prices for the chunk are resolved through
+ * {@link ProductPriceResolver} outside any transaction, then the chunk's orders, their ORDER_CREATED
+ * outbox events and the import's progress counters are written in one batched transaction. Memory is
+ * bounded by the chunk size, not by the size of the file.
+ * <p>
+ * Invalid lines are rejected individually and counted; the first {@value #MAX_REPORTED_ERRORS} reasons
+ * are kept on the import. A chunk that cannot be written (or a price lookup that fails for any reason
+ * other than an unknown product) marks the import FAILED; chunks committed before it stay committed and
+ * are reflected in the counters.
+ */
+@Service
+public class OrderImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderImportService.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    static final int MAX_REPORTED_ERRORS = 100;
+    private static final String CSV_HEADER = "customerName,productId,quantity,paymentMethod";
+    private static final String CURRENCY = "USD";
+
+    private final OrderImportRepository orderImportRepository;
+    private final OrderRepository orderRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final ProductPriceResolver productPriceResolver;
+    private final OutboxEventProcessor outboxEventProcessor;
+    private final OrderStatusNotifier orderStatusNotifier;
+    private final OrderStatusCounter orderStatusCounter;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public OrderImportService(OrderImportRepository orderImportRepository,
+                              OrderRepository orderRepository,
+                              OutboxEventRepository outboxEventRepository,
+                              ProductPriceResolver productPriceResolver,
+                              OutboxEventProcessor outboxEventProcessor,
+                              OrderStatusNotifier orderStatusNotifier,
+                              OrderStatusCounter orderStatusCounter,
+                              EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${orders.import.chunk-size:500}") int chunkSize) {
+        this.orderImportRepository = orderImportRepository;
+        this.orderRepository = orderRepository;
+        this.outboxEventRepository = outboxEventRepository;
+        this.productPriceResolver = productPriceResolver;
+        this.outboxEventProcessor = outboxEventProcessor;
+        this.orderStatusNotifier = orderStatusNotifier;
+        this.orderStatusCounter = orderStatusCounter;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    public OrderImportReport createImport(String username) {
+        OrderImport job = orderImportRepository.save(new OrderImport(UUID.randomUUID().toString(), username));
+        return OrderImportReport.from(job);
+    }
+
+    public OrderImport getImport(String id) {
+        return orderImportRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("OrderImport", "id", id));
+    }
+
+    /**
+     * Streams {@code body} into the import. Blocks until the body is consumed; progress can be polled
+     * through {@link #getImport} from another request meanwhile.
+     */
+    public OrderImportReport runImport(String id, OrderImport.Format format, InputStream body) {
+        getImport(id);
+        Integer started = transactionTemplate.execute(status ->
+                orderImportRepository.markRunning(id, format, LocalDateTime.now()));
+        if (started == null || started == 0) {
+            throw new InvalidOperationException("Import " + id + " has already been started");
+        }
+
+        Progress progress = new Progress();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            List<ImportLine> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String line;
+            if (format == OrderImport.Format.CSV) {
+                lineNumber++;
+                String header = reader.readLine();
+                if (header == null || !CSV_HEADER.equalsIgnoreCase(header.strip())) {
+                    throw new InvalidOperationException("CSV import must start with the header: " + CSV_HEADER);
+                }
+            }
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                progress.linesRead++;
+                try {
+                    chunk.add(format == OrderImport.Format.CSV ? parseCsv(lineNumber, line) : parseJson(lineNumber, line));
+                } catch (IllegalArgumentException e) {
+                    progress.reject(lineNumber, e.getMessage());
+                }
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(id, chunk, progress, false);
+                    chunk.clear();
+                }
+            }
+            writeChunk(id, chunk, progress, true);
+        } catch (Exception e) {
+            log.error("Order import {} failed after {} lines: {}", id, progress.linesRead, e.getMessage());
+            progress.errors.add("Import aborted: " + e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> saveProgress(id, progress, 0, OrderImport.Status.FAILED));
+        }
+
+        OrderImport job = getImport(id);
+        log.info("Order import {} by {} finished with status {}: {} lines read, {} orders created, {} rejected",
+                id, job.getUsername(), job.getStatus(), job.getLinesRead(), job.getOrdersCreated(), job.getLinesRejected());
+        return OrderImportReport.from(job);
+    }
+
+    /**
+     * Resolves prices for the chunk (outside the transaction, so a slow ProductService never pins a
+     * connection), then writes its orders, outbox events and the updated counters in one transaction.
+     */
+    private void writeChunk(String id, List<ImportLine> chunk, Progress progress, boolean last) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        List<ImportLine> accepted = new ArrayList<>(chunk.size());
+        for (ImportLine line : chunk) {
+            BigDecimal price = prices.computeIfAbsent(line.productId(), this::resolvePriceOrNull);
+            if (price == null) {
+                progress.reject(line.lineNumber(), "unknown product " + line.productId());
+            } else {
+                accepted.add(line);
+            }
+        }
+
+        String username = getImport(id).getUsername();
+        Integer created = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OrderEntity> orders = new ArrayList<>(accepted.size());
+            for (ImportLine line : accepted) {
+                BigDecimal amount = prices.get(line.productId()).multiply(BigDecimal.valueOf(line.quantity()));
+                OrderEntity order = new OrderEntity(line.customerName(), line.productId(), line.quantity(), amount);
+                order.setStatus(OrderStatus.PENDING);
+                order.setCreatedAt(now);
+                order.setUsername(username);
+                order.setAmount(amount);
+                order.setCurrency(CURRENCY);
+                order.setPaymentMethod(line.paymentMethod());
+                orders.add(order);
+            }
+            List<OrderEntity> savedOrders = orderRepository.saveAll(orders);
+
+            List<OutboxEvent> events = savedOrders.stream()
+                    .map(o -> OutboxEvent.orderCreated(o.getId(), o.getProductId(), o.getQuantity()))
+                    .toList();
+            outboxEventRepository.saveAll(events);
+            events.forEach(e -> outboxEventProcessor.dispatchAfterCommit(e.getId()));
+            if (!savedOrders.isEmpty()) {
+                orderStatusCounter.recordCreated(OrderStatus.PENDING, savedOrders.size());
+                orderStatusNotifier.ordersCreated(username, savedOrders);
+            }
+
+            saveProgress(id, progress, savedOrders.size(),
+                    last ? OrderImport.Status.COMPLETED : OrderImport.Status.RUNNING);
+            entityManager.flush();
+            // Keep the persistence context from growing with every chunk.
+            entityManager.clear();
+            return savedOrders.size();
+        });
+        // Counted only once the chunk committed, so a failed chunk never shows up in the report.
+        progress.ordersCreated += created == null ? 0 : created;
+    }
+
+    private BigDecimal resolvePriceOrNull(String productId) {
+        try {
+            return productPriceResolver.resolvePrice(productId);
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code progress} on the import job. {@code chunkOrders} are orders written by the calling
+     * transaction and not yet counted in {@code progress}.
+     */
+    private void saveProgress(String id, Progress progress, int chunkOrders, OrderImport.Status status) {
+        OrderImport job = getImport(id);
+        LocalDateTime now = LocalDateTime.now();
+        job.setLinesRead(progress.linesRead);
+        job.setOrdersCreated(progress.ordersCreated + chunkOrders);
+        job.setLinesRejected(progress.linesRejected);
+        job.setErrors(progress.errors.isEmpty() ? null : String.join("\n", progress.errors));
+        job.setStatus(status);
+        job.setUpdatedAt(now);
+        if (status == OrderImport.Status.COMPLETED || status == OrderImport.Status.FAILED) {
+            job.setFinishedAt(now);
+        }
+        orderImportRepository.save(job);
+    }
+
+    private static ImportLine parseJson(long lineNumber, String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("malformed JSON");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        return toImportLine(lineNumber, text(node, "customerName"), text(node, "productId"),
+                text(node, "quantity"), text(node, "paymentMethod"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static ImportLine parseCsv(long lineNumber, String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() != 4) {
+            throw new IllegalArgumentException("expected 4 columns but found " + fields.size());
+        }
+        return toImportLine(lineNumber, fields.get(0), fields.get(1), fields.get(2), fields.get(3));
+    }
+
+    /**
+     * Splits one CSV record, honouring double-quoted fields and {@code ""} escapes. Quoted fields may not
+     * span lines.
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static ImportLine toImportLine(long lineNumber, String customerName, String productId,
+                                           String quantity, String paymentMethod) {
+        if (customerName == null || customerName.isBlank()) {
+            throw new IllegalArgumentException("customerName is required");
+        }
+        if (productId == null || productId.isBlank()) {
+            throw new IllegalArgumentException("productId is required");
+        }
+        int qty;
+        try {
+            qty = Integer.parseInt(quantity == null ? "" : quantity.strip());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("quantity must be a whole number");
+        }
+        if (qty <= 0) {
+            throw new IllegalArgumentException("quantity must be positive");
+        }
+        String method = paymentMethod == null || paymentMethod.isBlank() ? null : paymentMethod.strip();
+        return new ImportLine(lineNumber, customerName.strip(), productId.strip(), qty, method);
+    }
+
+    private record ImportLine(long lineNumber, String customerName, String productId, int quantity,
+                              String paymentMethod) {
+    }
+
+    private static final class Progress {
+        private long linesRead;
+        private long ordersCreated;
+        private long linesRejected;
+        private final List<String> errors = new ArrayList<>();
+
+        void reject(long lineNumber, String reason) {
+            linesRejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+}
@@ -16,7 +16,7 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
 @Component
@@ -25,39 +25,70 @@ public class OrderPaymentProcessor {
     private static final Logger log = LoggerFactory.getLogger(OrderPaymentProcessor.class);
 
     private final OrderRepository orderRepository;
-    private final OutboxEventRepository outboxEventRepository;
     private final PaymentServiceClient paymentServiceClient;
     private final RabbitTemplate rabbitTemplate;
+    private final OrderStateMachine orderStateMachine;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventProcessor outboxEventProcessor;
 
     public OrderPaymentProcessor(OrderRepository orderRepository,
-                                 OutboxEventRepository outboxEventRepository,
                                  PaymentServiceClient paymentServiceClient,
-                                 RabbitTemplate rabbitTemplate) {
+                                 RabbitTemplate rabbitTemplate,
+                                 OrderStateMachine orderStateMachine,
+                                 OutboxEventRepository outboxEventRepository,
+                                 OutboxEventProcessor outboxEventProcessor) {
         this.orderRepository = orderRepository;
-        this.outboxEventRepository = outboxEventRepository;
         this.paymentServiceClient = paymentServiceClient;
         this.rabbitTemplate = rabbitTemplate;
+        this.orderStateMachine = orderStateMachine;
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventProcessor = outboxEventProcessor;
     }
 
 
+    /**
+     * Applies a payment result if the order's current status still allows it. A result for an order
+     * that has moved on (e.g. already paid by a redelivered result) is logged and dropped. Entering
+     * PAYMENT_FAILED releases the reserved stock (see {@link OrderStateMachine}).
+     * <p>
+     * A successful payment for an order that was cancelled meanwhile (e.g. by the saga deadline) cannot be
+     * applied, but the customer has been charged: the transaction is recorded on the order and a refund is
+     * enqueued, once per transaction.
+     *
+     * @return the updated order, or {@code null} if the result was dropped
+     */
     @Transactional
     public OrderEntity handlePaymentResult(PaymentResultEvent paymentResponse) {
         Long orderId = Long.parseLong(paymentResponse.getOrderId());
-        OrderEntity fresh = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
-
-        fresh.setPaymentTransactionId(paymentResponse.getTransactionId());
-
-        if ("SUCCESS".equals(paymentResponse.getStatus())) {
-            fresh.setStatus(OrderStatus.PAID);
-        } else {
-            fresh.setStatus(OrderStatus.PAYMENT_FAILED);
-            fresh.setStatusMessage(paymentResponse.getErrorMessage());
-            enqueueStockRestore(fresh);
+        boolean success = "SUCCESS".equals(paymentResponse.getStatus());
+        OrderStatus next = success ? OrderStatus.PAID : OrderStatus.PAYMENT_FAILED;
+
+        Optional<OrderEntity> applied = orderStateMachine.transition(orderId, next,
+                success ? null : paymentResponse.getErrorMessage(), paymentResponse.getTransactionId());
+        if (applied.isEmpty()) {
+            OrderStatus current = orderRepository.findStatusById(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+            if (success && current == OrderStatus.CANCELLED) {
+                refundPaymentAfterCancel(orderId, paymentResponse.getTransactionId());
+                return null;
+            }
+            log.warn("Ignoring payment result {} for order {}: it cannot move from {} to {}",
+                    paymentResponse.getStatus(), orderId, current, next);
+            return null;
         }
+        return applied.get();
+    }
 
-        fresh.setUpdatedAt(LocalDateTime.now());
-        return orderRepository.save(fresh);
+    private void refundPaymentAfterCancel(Long orderId, String transactionId) {
+        if (transactionId == null || orderRepository.recordPaymentAfterCancel(orderId, transactionId) == 0) {
+            log.warn("Ignoring payment result SUCCESS for cancelled order {}: transaction {} already handled",
+                    orderId, transactionId);
+            return;
+        }
+        OutboxEvent refund = OutboxEvent.refundRequested(orderId, transactionId);
+        outboxEventRepository.save(refund);
+        outboxEventProcessor.dispatchAfterCommit(refund.getId());
+        log.warn("Payment {} succeeded after order {} was cancelled; enqueued a refund", transactionId, orderId);
     }
 
     public OrderEntity handlePaymentError(Long orderId, Throwable ex) {
@@ -65,6 +96,11 @@ public class OrderPaymentProcessor {
         throw new RuntimeException("Payment processing failed due to technical error", ex);
     }
 
+    /**
+     * Moves a paid order to REFUND_PENDING, which enqueues the refund request (see
+     * {@link OrderStateMachine}).
+     */
+    @Transactional
     public CompletableFuture<OrderEntity> refundPaymentAsync(Long id) {
         OrderEntity order = orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
@@ -75,14 +111,7 @@ public class OrderPaymentProcessor {
             return f;
         }
 
-        order.setStatus(OrderStatus.REFUND_PENDING);
-        order.setUpdatedAt(LocalDateTime.now());
-        OrderEntity savedOrder = orderRepository.save(order);
-
-        OutboxEvent event = OutboxEvent.refundRequested(order.getId(), order.getPaymentTransactionId());
-        outboxEventRepository.save(event);
-
-        return CompletableFuture.completedFuture(savedOrder);
+        return CompletableFuture.completedFuture(orderStateMachine.require(id, OrderStatus.REFUND_PENDING));
     }
 
     @Async
@@ -98,14 +127,4 @@ public class OrderPaymentProcessor {
 
         return paymentServiceClient.getPaymentStatusCompletable(order.getPaymentTransactionId());
     }
-
-    private void enqueueStockRestore(OrderEntity order) {
-        if (order.getProductId() == null || order.getQuantity() == null || order.getQuantity() <= 0) {
-            return;
-        }
-        OutboxEvent event = OutboxEvent.stockCompensation(order.getId(), order.getProductId(), order.getQuantity());
-        outboxEventRepository.save(event);
-        log.info("Enqueued STOCK_COMPENSATION outbox event for order {} (product={}, qty={})",
-                order.getId(), order.getProductId(), order.getQuantity());
-    }
 }
@@ -0,0 +1,85 @@
+package org.example.orderService.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.orderService.dto.OrderPage;
+import org.example.orderService.dto.OrderResponse;
+import org.example.orderService.event.OrderStatusChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the endpoints clients poll while an order moves through the saga: single orders
+ * by id and the first page of a user's orders. Entries are dropped on every {@link OrderStatusChangedEvent},
+ * local or broadcast from another instance; {@code order-cache.ttl-seconds} bounds staleness if a
+ * broadcast is lost. Hit ratios are published as {@code cache.*} metrics for {@code cache=ordersById}
+ * and {@code cache=myOrders}.
+ * <p>
+ * Loads go through {@link Cache#get}, so an invalidation that races with a load waits for it and then
+ * removes its result instead of letting a stale value in. They run through
+ * {@link ReadReplicaRouter#readYourWrites}, so with read-your-writes enabled an order or user that just
+ * changed is reloaded from the primary rather than a replica that may not have replayed the change yet.
+ */
+@Component
+public class OrderResponseCache {
+
+    private final Cache<Long, OrderResponse> ordersById;
+    private final Cache<String, OrderPage> myOrders;
+    private final ReadReplicaRouter readReplicaRouter;
+
+    public OrderResponseCache(MeterRegistry meterRegistry,
+                              ReadReplicaRouter readReplicaRouter,
+                              @Value("${order-cache.max-size:50000}") long maxSize,
+                              @Value("${order-cache.ttl-seconds:30}") long ttlSeconds) {
+        this.ordersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.myOrders = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ordersById, "ordersById");
+        CaffeineCacheMetrics.monitor(meterRegistry, myOrders, "myOrders");
+        this.readReplicaRouter = readReplicaRouter;
+    }
+
+    public Optional<OrderResponse> getOrder(Long id, Function<Long, Optional<OrderResponse>> loader) {
+        return Optional.ofNullable(ordersById.get(id, key ->
+                readReplicaRouter.readYourWrites(orderKey(key), () -> loader.apply(key).orElse(null))));
+    }
+
+    public OrderPage getFirstPageOfMyOrders(String username, Supplier<OrderPage> loader) {
+        return myOrders.get(username, key -> readReplicaRouter.readYourWrites(userKey(key), loader));
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOrderId() != null) {
+            readReplicaRouter.recordWrite(orderKey(event.getOrderId()));
+            ordersById.invalidate(event.getOrderId());
+        }
+        if (event.getUsername() != null) {
+            readReplicaRouter.recordWrite(userKey(event.getUsername()));
+            myOrders.invalidate(event.getUsername());
+        }
+    }
+
+    private static String orderKey(Long id) {
+        return "order:" + id;
+    }
+
+    private static String userKey(String username) {
+        return "user:" + username;
+    }
+}
@@ -0,0 +1,185 @@
+package org.example.orderService.service;
+
+import jakarta.annotation.PreDestroy;
+import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.example.common.exception.InvalidOperationException;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.dto.admin.OrderRollupDto;
+import org.example.orderService.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Per-minute and per-hour order rollups (see V16 migration). Every order that enters a status on this
+ * instance is added to an in-memory minute and hour bucket keyed by status and currency; the buckets are
+ * flushed every {@code rollups.flush-interval-ms} as one batched additive upsert, so instances never
+ * overwrite each other's contribution. Only events that originated here are counted, never ones
+ * broadcast by other instances.
+ * <p>
+ * Buckets live in memory until flushed: an instance that dies without shutting down loses at most one
+ * flush interval of activity.
+ */
+@Component
+public class OrderRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderRollupService.class);
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private static final int MAX_QUERY_ROWS = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderStatusNotifier orderStatusNotifier;
+    private final int minuteRetentionDays;
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Map<BucketKey, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public OrderRollupService(JdbcTemplate jdbcTemplate,
+                              OrderStatusNotifier orderStatusNotifier,
+                              @Value("${rollups.minute-retention-days:14}") int minuteRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderStatusNotifier = orderStatusNotifier;
+        this.minuteRetentionDays = minuteRetentionDays;
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOrderId() == null || event.getStatus() == null
+                || !orderStatusNotifier.getNodeId().equals(event.getSourceNode())) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String currency = event.getCurrency() == null ? "" : event.getCurrency();
+        BigDecimal amount = event.getAmount() == null ? BigDecimal.ZERO : event.getAmount();
+        swapLock.readLock().lock();
+        try {
+            for (Granularity granularity : Granularity.values()) {
+                BucketKey key = new BucketKey(granularity, now.truncatedTo(granularity.unit), event.getStatus(), currency);
+                buckets.computeIfAbsent(key, k -> new Bucket()).add(amount);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rollups.flush-interval-ms:10000}")
+    public void flush() {
+        Map<BucketKey, Bucket> pending;
+        swapLock.writeLock().lock();
+        try {
+            if (buckets.isEmpty()) {
+                return;
+            }
+            pending = buckets;
+            buckets = new ConcurrentHashMap<>();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+
+        List<Map.Entry<BucketKey, Bucket>> rows = new ArrayList<>(pending.entrySet());
+        try {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO order_rollups (granularity, bucket_start, status, currency, order_count, amount_sum) "
+                            + "VALUES (?, ?, ?, ?, ?, ?) "
+                            + "ON CONFLICT (granularity, bucket_start, status, currency) DO UPDATE SET "
+                            + "order_count = order_rollups.order_count + EXCLUDED.order_count, "
+                            + "amount_sum = order_rollups.amount_sum + EXCLUDED.amount_sum",
+                    rows, rows.size(), (ps, row) -> {
+                        BucketKey key = row.getKey();
+                        ps.setString(1, key.granularity().name());
+                        ps.setTimestamp(2, Timestamp.valueOf(key.bucketStart()));
+                        ps.setString(3, key.status().name());
+                        ps.setString(4, key.currency());
+                        ps.setLong(5, row.getValue().count);
+                        ps.setBigDecimal(6, row.getValue().amount);
+                    });
+        } catch (Exception e) {
+            log.warn("Failed to flush {} order rollup buckets, keeping them for the next flush: {}",
+                    rows.size(), e.getMessage());
+            swapLock.readLock().lock();
+            try {
+                pending.forEach((key, bucket) -> buckets.computeIfAbsent(key, k -> new Bucket()).merge(bucket));
+            } finally {
+                swapLock.readLock().unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Buckets starting in {@code [from, to)}, oldest first, optionally for a single status.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderRollupDto> query(Granularity granularity, LocalDateTime from, LocalDateTime to, OrderStatus status) {
+        if (!from.isBefore(to)) {
+            throw new InvalidOperationException("'from' must be before 'to'");
+        }
+        String sql = "SELECT bucket_start, status, currency, order_count, amount_sum FROM order_rollups "
+                + "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?"
+                + (status != null ? " AND status = ?" : "")
+                + " ORDER BY bucket_start, status, currency LIMIT " + MAX_QUERY_ROWS;
+        List<Object> args = new ArrayList<>(List.of(granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        if (status != null) {
+            args.add(status.name());
+        }
+        return jdbcTemplate.query(sql, (rs, i) -> new OrderRollupDto(
+                rs.getTimestamp(1).toLocalDateTime(), rs.getString(2), rs.getString(3), rs.getLong(4),
+                rs.getBigDecimal(5)), args.toArray());
+    }
+
+    @Scheduled(cron = "0 45 3 * * ?")
+    @SchedulerLock(name = "OrderRollups_retention", lockAtLeastFor = "1m", lockAtMostFor = "10m")
+    public void deleteExpiredMinuteBuckets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minuteRetentionDays);
+        int deleted = jdbcTemplate.update("DELETE FROM order_rollups WHERE granularity = ? AND bucket_start < ?",
+                Granularity.MINUTE.name(), Timestamp.valueOf(cutoff));
+        log.info("Deleted {} minute order rollups older than {}", deleted, cutoff);
+    }
+
+    private record BucketKey(Granularity granularity, LocalDateTime bucketStart, OrderStatus status, String currency) {
+    }
+
+    private static final class Bucket {
+        private long count;
+        private BigDecimal amount = BigDecimal.ZERO;
+
+        synchronized void add(BigDecimal value) {
+            count++;
+            amount = amount.add(value);
+        }
+
+        synchronized void merge(Bucket other) {
+            count += other.count;
+            amount = amount.add(other.amount);
+        }
+    }
+}
@@ -1,99 +1,205 @@
 package org.example.orderService.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.common.event.OrderCreatedEvent;
+import org.example.common.event.StockReservationFailedEvent;
 import org.example.common.event.StockReservedEvent;
 import org.example.common.exception.InvalidOperationException;
 import org.example.common.exception.ResourceNotFoundException;
 import org.example.common.model.OrderStatus;
-import org.example.orderService.client.ProductServiceClient;
+import org.example.orderService.dto.CheckoutRequest;
+import org.example.orderService.dto.CheckoutResponse;
+import org.example.orderService.dto.OrderCursor;
+import org.example.orderService.dto.OrderPage;
 import org.example.orderService.dto.OrderRequest;
 import org.example.orderService.dto.OrderResponse;
 import org.example.orderService.dto.PaymentResponse;
-import org.example.orderService.dto.ProductResponse;
 import org.example.orderService.mapper.OrderMapper;
 import org.example.orderService.model.OrderEntity;
-import org.example.orderService.model.ProcessedEvent;
 import org.example.orderService.repository.OrderRepository;
 import org.example.orderService.repository.OutboxEventRepository;
 import org.example.orderService.repository.ProcessedEventRepository;
-import org.example.orderService.repository.ProductPriceCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
 @Service
 public class OrderService {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderService.class);
+
     private final OrderRepository orderRepository;
     private final OutboxEventRepository outboxEventRepository;
     private final OrderMapper orderMapper;
     private final OrderPaymentProcessor orderPaymentProcessor;
-    private final ProductServiceClient productServiceClient;
     private final ProcessedEventRepository processedEventRepository;
-    private final ProductPriceCacheRepository productPriceCacheRepository;
+    private final ProductPriceResolver productPriceResolver;
+    private final OutboxEventProcessor outboxEventProcessor;
+    private final OrderIdempotencyStore orderIdempotencyStore;
+    private final OrderResponseCache orderResponseCache;
+    private final OrderStatusNotifier orderStatusNotifier;
+    private final OrderStatusCounter orderStatusCounter;
+    private final OrderStateMachine orderStateMachine;
+    private final ReadReplicaRouter readReplicaRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+    private final Timer resolvePhaseTimer;
+    private final Timer writePhaseTimer;
 
     public OrderService(OrderRepository orderRepository,
                         OutboxEventRepository outboxEventRepository,
                         OrderMapper orderMapper,
                         OrderPaymentProcessor orderPaymentProcessor,
-                        ProductServiceClient productServiceClient,
                         ProcessedEventRepository processedEventRepository,
-                        ProductPriceCacheRepository productPriceCacheRepository) {
+                        ProductPriceResolver productPriceResolver,
+                        OutboxEventProcessor outboxEventProcessor,
+                        OrderIdempotencyStore orderIdempotencyStore,
+                        OrderResponseCache orderResponseCache,
+                        OrderStatusNotifier orderStatusNotifier,
+                        OrderStatusCounter orderStatusCounter,
+                        OrderStateMachine orderStateMachine,
+                        ReadReplicaRouter readReplicaRouter,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${orders.page.default-size:50}") int defaultPageSize,
+                        @Value("${orders.page.max-size:500}") int maxPageSize) {
         this.orderRepository = orderRepository;
         this.outboxEventRepository = outboxEventRepository;
         this.orderMapper = orderMapper;
         this.orderPaymentProcessor = orderPaymentProcessor;
-        this.productServiceClient = productServiceClient;
         this.processedEventRepository = processedEventRepository;
-        this.productPriceCacheRepository = productPriceCacheRepository;
+        this.productPriceResolver = productPriceResolver;
+        this.outboxEventProcessor = outboxEventProcessor;
+        this.orderIdempotencyStore = orderIdempotencyStore;
+        this.orderResponseCache = orderResponseCache;
+        this.orderStatusNotifier = orderStatusNotifier;
+        this.orderStatusCounter = orderStatusCounter;
+        this.orderStateMachine = orderStateMachine;
+        this.readReplicaRouter = readReplicaRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.resolvePhaseTimer = createPhaseTimer(meterRegistry, "resolve");
+        this.writePhaseTimer = createPhaseTimer(meterRegistry, "write");
     }
 
-    public List<OrderResponse> getAllOrders() {
-        return orderRepository.findAll().stream()
-                .map(orderMapper::toResponse)
-                .toList();
+    private static Timer createPhaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("orders.create.phase")
+                .description("Duration of each order-creation phase; only the write phase holds a DB connection")
+                .tag("phase", phase)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    public List<OrderResponse> getMyOrders() {
+    @Transactional(readOnly = true)
+    public OrderPage getAllOrders(String cursor, Integer size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(orderRepository.findPageBefore(after.createdAt(), after.id(), PageRequest.of(0, pageSize + 1)),
+                pageSize);
+    }
+
+    /**
+     * The first page with the default size is what polling clients ask for; it is served from
+     * {@link OrderResponseCache}.
+     */
+    @Transactional(readOnly = true)
+    public OrderPage getMyOrders(String cursor, Integer size) {
         String username = resolveCurrentUsername();
-        return orderRepository.findByUsername(username).stream()
-                .map(orderMapper::toResponse)
-                .toList();
+        if ((cursor == null || cursor.isBlank()) && size == null) {
+            return orderResponseCache.getFirstPageOfMyOrders(username, () -> loadMyOrders(username, null, null));
+        }
+        return loadMyOrders(username, cursor, size);
+    }
+
+    private OrderPage loadMyOrders(String username, String cursor, Integer size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(orderRepository.findPageByUsernameBefore(username, after.createdAt(), after.id(),
+                PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
     public Optional<OrderResponse> getOrderById(Long id) {
-        return orderRepository.findById(id).map(orderMapper::toResponse);
+        return orderResponseCache.getOrder(id, key -> orderRepository.findById(key).map(orderMapper::toResponse));
     }
 
-    @Transactional
+    /**
+     * Reads order {@code id} from the primary, bypassing the response cache and the read replicas, for
+     * callers that must not start from a stale status.
+     */
+    public Optional<OrderResponse> getOrderFromPrimary(Long id) {
+        return readReplicaRouter.onPrimary(() -> orderRepository.findById(id).map(orderMapper::toResponse));
+    }
+
+    /**
+     * Creates an order in two phases. The price is resolved first, outside any transaction, so a slow
+     * ProductService never pins a pooled connection; the order row and its outbox event are then written
+     * in one short transaction.
+     */
     public OrderResponse createOrder(OrderRequest orderRequest) {
+        return createOrder(orderRequest, null);
+    }
+
+    /**
+     * Same as {@link #createOrder(OrderRequest)}, but a repeated {@code idempotencyKey} from the same user
+     * returns the first call's response instead of creating another order.
+     */
+    public OrderResponse createOrder(OrderRequest orderRequest, String idempotencyKey) {
+        String username = resolveCurrentUsername();
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return createOrder(orderRequest, username, null, null);
+        }
+        String requestHash = OrderIdempotencyStore.requestHash(orderRequest.getCustomerName(),
+                orderRequest.getProductId(), orderRequest.getQuantity(), orderRequest.getTotalPrice(),
+                orderRequest.getPaymentMethod());
+        return orderIdempotencyStore.execute(username, idempotencyKey, requestHash,
+                scopedKey -> createOrder(orderRequest, username, scopedKey, requestHash));
+    }
+
+    private OrderResponse createOrder(OrderRequest orderRequest, String username, String scopedKey, String requestHash) {
         String productId = orderRequest.getProductId();
-        BigDecimal productPrice;
-        String currency = "USD";
+        BigDecimal productPrice = resolvePhaseTimer.record(() -> resolvePrice(productId));
 
-        try {
-            Optional<org.example.orderService.model.ProductPriceCache> cachedProduct = productPriceCacheRepository.findById(productId);
-            if (cachedProduct.isPresent()) {
-                productPrice = cachedProduct.get().getPrice();
-            } else {
-                ProductResponse fallbackResponse = productServiceClient.getProductById(productId);
-                if (fallbackResponse == null) {
-                    throw new ResourceNotFoundException("Product price not found locally or remotely for id: " + productId);
-                }
-                productPrice = fallbackResponse.getPrice();
+        return writePhaseTimer.record(() -> transactionTemplate.execute(status -> {
+            OrderResponse response = writeOrder(orderRequest, productPrice, username);
+            if (scopedKey != null) {
+                orderIdempotencyStore.record(scopedKey, requestHash, response.getId());
             }
+            return response;
+        }));
+    }
+
+    private BigDecimal resolvePrice(String productId) {
+        try {
+            return productPriceResolver.resolvePrice(productId);
         } catch (Exception e) {
             throw new InvalidOperationException("Failed to fetch product " + productId + " from local cache or remote service: " + e.getMessage(), e);
         }
+    }
 
+    private OrderResponse writeOrder(OrderRequest orderRequest, BigDecimal productPrice, String username) {
+        String productId = orderRequest.getProductId();
+        String currency = "USD";
         BigDecimal totalAmount = productPrice.multiply(BigDecimal.valueOf(orderRequest.getQuantity()));
-        String username = resolveCurrentUsername();
 
         OrderEntity order = new OrderEntity();
         order.setStatus(OrderStatus.PENDING);
@@ -110,10 +216,71 @@ public class OrderService {
         org.example.orderService.model.OutboxEvent event = org.example.orderService.model.OutboxEvent.orderCreated(
                 savedOrder.getId(), orderRequest.getProductId(), orderRequest.getQuantity());
         outboxEventRepository.save(event);
+        outboxEventProcessor.dispatchAfterCommit(event.getId());
+        orderStatusCounter.recordCreated(OrderStatus.PENDING, 1);
+        orderStatusNotifier.orderChanged(savedOrder);
 
         return orderMapper.toResponse(savedOrder);
     }
 
+    /**
+     * Creates one order per cart line in a single transaction, with one aggregated ORDER_CREATED event
+     * so ProductService reserves the whole cart in one pass. Prices are resolved up front, outside the
+     * transaction, exactly like {@link #createOrder}.
+     */
+    public CheckoutResponse checkout(CheckoutRequest request) {
+        Map<String, BigDecimal> prices = resolvePhaseTimer.record(() -> resolvePrices(request.getLines()));
+        String username = resolveCurrentUsername();
+
+        return writePhaseTimer.record(() -> transactionTemplate.execute(status ->
+                writeCheckout(request, prices, username)));
+    }
+
+    private Map<String, BigDecimal> resolvePrices(List<CheckoutRequest.Line> lines) {
+        Map<String, BigDecimal> prices = new HashMap<>();
+        for (CheckoutRequest.Line line : lines) {
+            prices.computeIfAbsent(line.getProductId(), this::resolvePrice);
+        }
+        return prices;
+    }
+
+    private CheckoutResponse writeCheckout(CheckoutRequest request, Map<String, BigDecimal> prices, String username) {
+        String checkoutId = UUID.randomUUID().toString();
+        String currency = "USD";
+        LocalDateTime now = LocalDateTime.now();
+
+        List<OrderEntity> orders = new ArrayList<>(request.getLines().size());
+        for (CheckoutRequest.Line line : request.getLines()) {
+            BigDecimal lineAmount = prices.get(line.getProductId()).multiply(BigDecimal.valueOf(line.getQuantity()));
+            OrderEntity order = new OrderEntity(request.getCustomerName(), line.getProductId(), line.getQuantity(), lineAmount);
+            order.setStatus(OrderStatus.PENDING);
+            order.setCreatedAt(now);
+            order.setUsername(username);
+            order.setAmount(lineAmount);
+            order.setCurrency(currency);
+            order.setPaymentMethod(request.getPaymentMethod());
+            order.setCheckoutId(checkoutId);
+            orders.add(order);
+        }
+        List<OrderEntity> savedOrders = orderRepository.saveAll(orders);
+
+        List<OrderCreatedEvent.Line> eventLines = savedOrders.stream()
+                .map(o -> new OrderCreatedEvent.Line(o.getId().toString(), o.getProductId(), o.getQuantity()))
+                .toList();
+        org.example.orderService.model.OutboxEvent event =
+                org.example.orderService.model.OutboxEvent.checkoutCreated(checkoutId, eventLines);
+        outboxEventRepository.save(event);
+        outboxEventProcessor.dispatchAfterCommit(event.getId());
+        orderStatusCounter.recordCreated(OrderStatus.PENDING, savedOrders.size());
+        orderStatusNotifier.ordersCreated(username, savedOrders);
+
+        BigDecimal totalAmount = savedOrders.stream()
+                .map(OrderEntity::getAmount)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return new CheckoutResponse(checkoutId, totalAmount, currency,
+                savedOrders.stream().map(orderMapper::toResponse).toList());
+    }
+
     @Transactional
     public void initiateOrderPayment(Long orderId) {
         OrderEntity order = orderRepository.findById(orderId)
@@ -125,40 +292,39 @@ public class OrderService {
 
     @Transactional
     public void processStockReserved(StockReservedEvent event) {
-        if (event.getEventId() != null && processedEventRepository.existsById(event.getEventId())) {
+        if (event.getEventId() != null && processedEventRepository.markProcessed(event.getEventId()) == 0) {
+            log.info("Event {} already processed. Skipping.", event.getEventId());
             return;
         }
 
+        // Entering STOCK_RESERVED enqueues the payment (see OrderStateMachine).
         Long orderId = Long.parseLong(event.getOrderId());
-        OrderEntity order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
-
-        if (order.getStatus().canTransitionTo(OrderStatus.STOCK_RESERVED)) {
-            order.setStatus(OrderStatus.STOCK_RESERVED);
-            order.setUpdatedAt(LocalDateTime.now());
-            orderRepository.save(order);
+        if (orderStateMachine.transition(orderId, OrderStatus.STOCK_RESERVED).isEmpty()) {
+            OrderEntity order = orderRepository.findById(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
+            if (order.getStatus() == OrderStatus.CANCELLED) {
+                // Cancelled while PENDING (e.g. by SagaDeadlineScheduler): give the late reservation back.
+                outboxEventRepository.save(org.example.orderService.model.OutboxEvent.stockCompensation(
+                        orderId, order.getProductId(), order.getQuantity()));
+                log.warn("Releasing stock reserved for order {} after it was cancelled", orderId);
+            } else {
+                log.warn("Ignoring StockReservedEvent for order {} in status {}", orderId, order.getStatus());
+            }
         }
+    }
 
-        org.example.orderService.model.OutboxEvent outboxEvent = org.example.orderService.model.OutboxEvent.initiatePayment(
-                orderId, order.getAmount(), order.getCurrency(), order.getPaymentMethod());
-        outboxEventRepository.save(outboxEvent);
-
-        if (event.getEventId() != null) {
-            processedEventRepository.save(new ProcessedEvent(event.getEventId()));
+    @Transactional
+    public void processStockReservationFailed(StockReservationFailedEvent event) {
+        if (event.getEventId() != null && processedEventRepository.markProcessed(event.getEventId()) == 0) {
+            log.info("Event {} already processed. Skipping.", event.getEventId());
+            return;
         }
+        orderStateMachine.require(Long.parseLong(event.getOrderId()), OrderStatus.FAILED);
     }
 
     @Transactional
     public OrderResponse updateOrderStatus(Long id, OrderStatus status) {
-        OrderEntity order = orderRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
-        if (!order.getStatus().canTransitionTo(status)) {
-            throw new InvalidOperationException(
-                    "Invalid order status transition: " + order.getStatus() + " -> " + status);
-        }
-        order.setStatus(status);
-        order.setUpdatedAt(LocalDateTime.now());
-        return orderMapper.toResponse(orderRepository.save(order));
+        return orderMapper.toResponse(orderStateMachine.require(id, status));
     }
 
     public CompletableFuture<OrderEntity> refundOrderPaymentAsync(Long id) {
@@ -167,28 +333,53 @@ public class OrderService {
 
     @Transactional
     public void deleteOrder(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Order", "id", id);
-        }
-        orderRepository.deleteById(id);
+        OrderEntity order = orderRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
+        orderRepository.delete(order);
+        orderStatusCounter.recordDeleted(order.getStatus());
+        orderStatusNotifier.orderDeleted(id, order.getUsername());
     }
 
-    public List<OrderResponse> getOrdersByCustomerName(String customerName) {
-        return orderRepository.findByCustomerName(customerName).stream()
-                .map(orderMapper::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByCustomerName(String customerName, String cursor, Integer size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(orderRepository.findPageByCustomerNameBefore(customerName, after.createdAt(), after.id(),
+                PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
-    public List<OrderResponse> getOrdersByStatus(OrderStatus status) {
-        return orderRepository.findByStatus(status).stream()
-                .map(orderMapper::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByStatus(OrderStatus status, String cursor, Integer size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(orderRepository.findPageByStatusBefore(status, after.createdAt(), after.id(),
+                PageRequest.of(0, pageSize + 1)), pageSize);
     }
 
-    public List<OrderResponse> getOrdersByProductId(String productId) {
-        return orderRepository.findByProductId(productId).stream()
-                .map(orderMapper::toResponse)
-                .toList();
+    @Transactional(readOnly = true)
+    public OrderPage getOrdersByProductId(String productId, String cursor, Integer size) {
+        OrderCursor after = OrderCursor.decode(cursor);
+        int pageSize = pageSize(size);
+        return toPage(orderRepository.findPageByProductIdBefore(productId, after.createdAt(), after.id(),
+                PageRequest.of(0, pageSize + 1)), pageSize);
+    }
+
+    private int pageSize(Integer requested) {
+        return requested == null ? defaultPageSize : Math.clamp(requested, 1, maxPageSize);
+    }
+
+    /**
+     * {@code rows} was fetched with one extra row; its presence means there is a next page.
+     */
+    private OrderPage toPage(List<OrderResponse> rows, int pageSize) {
+        boolean hasMore = rows.size() > pageSize;
+        List<OrderResponse> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            OrderResponse last = page.get(page.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new OrderPage(page, nextCursor);
     }
 
     public CompletableFuture<PaymentResponse> getOrderPaymentStatusAsync(Long id) {
@@ -0,0 +1,216 @@
+package org.example.orderService.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.model.OrderEntity;
+import org.example.orderService.model.OutboxEvent;
+import org.example.orderService.repository.OutboxEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The order saga's state machine: every status change of an existing order goes through here. The change
+ * itself is a compare-and-set ({@link OrderStatusTransitions}); once it applied, the actions registered
+ * for its from → to pair run in the same transaction, in registration order. Every transition updates the
+ * status counters and notifies {@link OrderStatusNotifier} (caches, SSE streams, rollups); the saga's
+ * outbox events are registered below.
+ * <p>
+ * Each pair is timed as {@code orders.status.transitions} (the update plus its actions) and
+ * {@code orders.status.dwell} (how long the order sat in {@code from}), both tagged {@code from} and
+ * {@code to}. Transitions that did not apply are counted in {@code orders.status.transitions.rejected}
+ * by target status. Actions and meters live in arrays indexed by ordinal, so dispatching a transition
+ * involves no lookups or allocation. Actions are registered once, during startup.
+ */
+@Component
+public class OrderStateMachine {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStateMachine.class);
+
+    @FunctionalInterface
+    public interface TransitionAction {
+        void apply(OrderEntity order, OrderStatus from, OrderStatus to);
+    }
+
+    private static final int STATUSES = OrderStatus.values().length;
+
+    private final OrderStatusTransitions orderStatusTransitions;
+    private final List<TransitionAction>[][] actions;
+    private final Timer[][] transitionTimers = new Timer[STATUSES][STATUSES];
+    private final Timer[][] dwellTimers = new Timer[STATUSES][STATUSES];
+    private final Counter[] rejected = new Counter[STATUSES];
+
+    @SuppressWarnings("unchecked")
+    public OrderStateMachine(OrderStatusTransitions orderStatusTransitions,
+                             OrderStatusCounter orderStatusCounter,
+                             OrderStatusNotifier orderStatusNotifier,
+                             OutboxEventRepository outboxEventRepository,
+                             OutboxEventProcessor outboxEventProcessor,
+                             MeterRegistry meterRegistry) {
+        this.orderStatusTransitions = orderStatusTransitions;
+        this.actions = new List[STATUSES][STATUSES];
+        for (OrderStatus to : OrderStatus.values()) {
+            rejected[to.ordinal()] = Counter.builder("orders.status.transitions.rejected")
+                    .description("Status transitions that did not apply: unknown order or status no longer allows it")
+                    .tag("to", to.name())
+                    .register(meterRegistry);
+            for (OrderStatus from : to.predecessors()) {
+                actions[from.ordinal()][to.ordinal()] = new ArrayList<>();
+                transitionTimers[from.ordinal()][to.ordinal()] = Timer.builder("orders.status.transitions")
+                        .description("Applied order status transitions, including their actions")
+                        .tag("from", from.name())
+                        .tag("to", to.name())
+                        .register(meterRegistry);
+                dwellTimers[from.ordinal()][to.ordinal()] = Timer.builder("orders.status.dwell")
+                        .description("Time an order spent in a status before leaving it")
+                        .tag("from", from.name())
+                        .tag("to", to.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+            }
+        }
+
+        for (OrderStatus to : OrderStatus.values()) {
+            onEnter(to, (order, from, next) -> orderStatusCounter.recordTransition(from, next));
+            onEnter(to, (order, from, next) -> orderStatusNotifier.orderChanged(order));
+        }
+        onEnter(OrderStatus.STOCK_RESERVED, (order, from, to) -> {
+            OutboxEvent event = OutboxEvent.initiatePayment(order.getId(), order.getAmount(), order.getCurrency(),
+                    order.getPaymentMethod());
+            outboxEventRepository.save(event);
+            outboxEventProcessor.dispatchAfterCommit(event.getId());
+        });
+        // A repeated PAYMENT_FAILED has already released its stock.
+        for (OrderStatus from : OrderStatus.PAYMENT_FAILED.predecessors()) {
+            if (from != OrderStatus.PAYMENT_FAILED) {
+                onTransition(from, OrderStatus.PAYMENT_FAILED, (order, previous, to) -> enqueueStockRestore(
+                        outboxEventRepository, order));
+            }
+        }
+        onTransition(OrderStatus.STOCK_RESERVED, OrderStatus.CANCELLED, (order, from, to) -> enqueueStockRestore(
+                outboxEventRepository, order));
+        onEnter(OrderStatus.REFUND_PENDING, (order, from, to) -> outboxEventRepository.save(
+                OutboxEvent.refundRequested(order.getId(), order.getPaymentTransactionId())));
+    }
+
+    /**
+     * Runs {@code action} after every applied {@code from} → {@code to} transition.
+     *
+     * @throws IllegalArgumentException if {@code from} cannot transition to {@code to}
+     */
+    public void onTransition(OrderStatus from, OrderStatus to, TransitionAction action) {
+        if (!from.canTransitionTo(to)) {
+            throw new IllegalArgumentException("No order status transition " + from + " -> " + to);
+        }
+        actions[from.ordinal()][to.ordinal()].add(action);
+    }
+
+    /**
+     * Runs {@code action} after every applied transition into {@code to}.
+     */
+    public void onEnter(OrderStatus to, TransitionAction action) {
+        for (OrderStatus from : to.predecessors()) {
+            onTransition(from, to, action);
+        }
+    }
+
+    /**
+     * Moves order {@code id} to {@code to} if its current status allows it and runs the actions.
+     *
+     * @return the order after the transition, or empty if it did not apply
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<OrderEntity> transition(Long id, OrderStatus to) {
+        return transition(id, to, null, null);
+    }
+
+    /**
+     * Like {@link #transition(Long, OrderStatus)}, also setting the status message and payment transaction
+     * id where they are not {@code null}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<OrderEntity> transition(Long id, OrderStatus to, String statusMessage, String paymentTransactionId) {
+        long startedAt = System.nanoTime();
+        Optional<OrderStatusTransitions.Applied> applied =
+                orderStatusTransitions.transition(id, to, statusMessage, paymentTransactionId);
+        if (applied.isEmpty()) {
+            rejected[to.ordinal()].increment();
+            return Optional.empty();
+        }
+        return Optional.of(afterTransition(applied.get(), to, startedAt));
+    }
+
+    /**
+     * Moves order {@code id} from {@code from} to {@code to} and runs the actions, only if the order is
+     * still in {@code from}.
+     *
+     * @return the order after the transition, or empty if it did not apply
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<OrderEntity> transitionFrom(Long id, OrderStatus from, OrderStatus to, String statusMessage) {
+        long startedAt = System.nanoTime();
+        Optional<OrderStatusTransitions.Applied> applied =
+                orderStatusTransitions.transitionFrom(id, from, to, statusMessage);
+        if (applied.isEmpty()) {
+            rejected[to.ordinal()].increment();
+            return Optional.empty();
+        }
+        return Optional.of(afterTransition(applied.get(), to, startedAt));
+    }
+
+    /**
+     * Like {@link #transition(Long, OrderStatus)}, but fails if the transition does not apply.
+     *
+     * @see OrderStatusTransitions#require(Long, OrderStatus)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public OrderEntity require(Long id, OrderStatus to) {
+        long startedAt = System.nanoTime();
+        OrderStatusTransitions.Applied applied;
+        try {
+            applied = orderStatusTransitions.require(id, to);
+        } catch (RuntimeException e) {
+            rejected[to.ordinal()].increment();
+            throw e;
+        }
+        return afterTransition(applied, to, startedAt);
+    }
+
+    private OrderEntity afterTransition(OrderStatusTransitions.Applied applied, OrderStatus to, long startedAt) {
+        int from = applied.from().ordinal();
+        OrderEntity order = applied.order();
+        List<TransitionAction> pairActions = actions[from][to.ordinal()];
+        for (int i = 0; i < pairActions.size(); i++) {
+            pairActions.get(i).apply(order, applied.from(), to);
+        }
+        transitionTimers[from][to.ordinal()].record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (applied.fromSince() != null) {
+            Duration dwell = Duration.between(applied.fromSince(), LocalDateTime.now());
+            if (!dwell.isNegative()) {
+                dwellTimers[from][to.ordinal()].record(dwell);
+            }
+        }
+        return order;
+    }
+
+    private static void enqueueStockRestore(OutboxEventRepository outboxEventRepository, OrderEntity order) {
+        if (order.getProductId() == null || order.getQuantity() == null || order.getQuantity() <= 0) {
+            return;
+        }
+        OutboxEvent event = OutboxEvent.stockCompensation(order.getId(), order.getProductId(), order.getQuantity());
+        outboxEventRepository.save(event);
+        log.info("Enqueued STOCK_COMPENSATION outbox event for order {} (product={}, qty={})",
+                order.getId(), order.getProductId(), order.getQuantity());
+    }
+}
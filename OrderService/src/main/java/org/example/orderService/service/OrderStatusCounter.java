@@ -0,0 +1,85 @@
+package org.example.orderService.service;
+
+import org.example.common.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Maintains {@code order_status_counts} (see V15 migration). Every method must run inside the transaction
+ * that creates, transitions or deletes the orders, so the counters commit or roll back with them.
+ * Increments land on a random slot of the status to keep concurrent transactions off the same row.
+ */
+@Component
+public class OrderStatusCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusCounter.class);
+
+    private static final String UPSERT = "INSERT INTO order_status_counts (status, slot, count) VALUES (?, ?, ?) "
+            + "ON CONFLICT (status, slot) DO UPDATE SET count = order_status_counts.count + EXCLUDED.count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int slots;
+
+    public OrderStatusCounter(JdbcTemplate jdbcTemplate,
+                              @Value("${order-stats.counter-slots:16}") int slots) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.slots = slots;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(OrderStatus status, int count) {
+        if (count > 0) {
+            add(status, count);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(OrderStatus from, OrderStatus to) {
+        if (Objects.equals(from, to)) {
+            return;
+        }
+        if (from != null) {
+            add(from, -1);
+        }
+        if (to != null) {
+            add(to, 1);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(OrderStatus status) {
+        if (status != null) {
+            add(status, -1);
+        }
+    }
+
+    /**
+     * Current count per status; reads at most {@code statuses × slots} rows.
+     */
+    @Transactional(readOnly = true)
+    public Map<OrderStatus, Long> currentCounts() {
+        Map<OrderStatus, Long> counts = new EnumMap<>(OrderStatus.class);
+        jdbcTemplate.query("SELECT status, SUM(count) FROM order_status_counts GROUP BY status", rs -> {
+            try {
+                counts.put(OrderStatus.valueOf(rs.getString(1)), rs.getLong(2));
+            } catch (IllegalArgumentException e) {
+                log.warn("Ignoring counter for unknown order status {}", rs.getString(1));
+            }
+        });
+        return counts;
+    }
+
+    private void add(OrderStatus status, long delta) {
+        jdbcTemplate.update(UPSERT, status.name(), ThreadLocalRandom.current().nextInt(slots), delta);
+    }
+}
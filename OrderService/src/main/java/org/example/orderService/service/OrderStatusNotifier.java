@@ -0,0 +1,123 @@
+package org.example.orderService.service;
+
+import org.example.orderService.config.RabbitMQConfig;
+import org.example.orderService.event.OrderStatusChangedEvent;
+import org.example.orderService.model.OrderEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Announces order changes to everything on this and the other OrderService instances that mirrors order
+ * state in memory. Once the changing transaction commits, the {@link OrderStatusChangedEvent} is
+ * published locally and sent to the {@link RabbitMQConfig#ORDER_STATUS_BROADCAST_EXCHANGE} fanout; every
+ * other instance receives it on its own auto-delete queue and republishes it locally.
+ * <p>
+ * The broadcast is best effort (no outbox): consumers must tolerate a lost message, e.g. through a TTL.
+ */
+@Component
+public class OrderStatusNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusNotifier.class);
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final RabbitTemplate rabbitTemplate;
+    private final String nodeId = resolveNodeId();
+
+    public OrderStatusNotifier(ApplicationEventPublisher applicationEventPublisher, RabbitTemplate rabbitTemplate) {
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    /**
+     * Identifies this instance in {@link OrderStatusChangedEvent#getSourceNode()}, so consumers can tell
+     * changes made here from ones broadcast by other instances.
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void orderChanged(OrderEntity order) {
+        OrderStatusChangedEvent event = toEvent(order);
+        afterCommit(() -> {
+            applicationEventPublisher.publishEvent(event);
+            broadcast(event);
+        });
+    }
+
+    public void orderDeleted(Long orderId, String username) {
+        OrderStatusChangedEvent event = new OrderStatusChangedEvent(orderId, username, null, null, null, null, nodeId, null);
+        afterCommit(() -> {
+            applicationEventPublisher.publishEvent(event);
+            broadcast(event);
+        });
+    }
+
+    /**
+     * Many orders of {@code username} were created at once (checkout, bulk import). Each order is
+     * published locally, but other instances get a single event without an order id, telling them to
+     * drop anything they hold for that user.
+     */
+    public void ordersCreated(String username, List<OrderEntity> orders) {
+        List<OrderStatusChangedEvent> events = orders.stream().map(this::toEvent).toList();
+        OrderStatusChangedEvent summary = new OrderStatusChangedEvent(null, username, null, null, null, null, nodeId, null);
+        afterCommit(() -> {
+            events.forEach(applicationEventPublisher::publishEvent);
+            broadcast(summary);
+        });
+    }
+
+    @RabbitListener(queues = "#{orderStatusBroadcastQueue.name}")
+    public void onBroadcast(OrderStatusChangedEvent event) {
+        if (nodeId.equals(event.getSourceNode())) {
+            return;
+        }
+        applicationEventPublisher.publishEvent(event);
+    }
+
+    private OrderStatusChangedEvent toEvent(OrderEntity order) {
+        return new OrderStatusChangedEvent(order.getId(), order.getUsername(), order.getStatus(),
+                order.getStatusMessage(), order.getAmount(), order.getCurrency(), nodeId,
+                order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void broadcast(OrderStatusChangedEvent event) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.ORDER_STATUS_BROADCAST_EXCHANGE, "", event);
+        } catch (Exception e) {
+            log.warn("Failed to broadcast status change of order {}: {}", event.getOrderId(), e.getMessage());
+        }
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
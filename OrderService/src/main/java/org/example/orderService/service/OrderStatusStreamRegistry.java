@@ -0,0 +1,193 @@
+package org.example.orderService.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.common.exception.InvalidOperationException;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.dto.OrderResponse;
+import org.example.orderService.event.OrderStatusChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Fan-out of order status changes to server-sent-event subscribers. Subscribers are async servlet
+ * requests, so an idle one costs an {@link SseEmitter} and a map entry, not a thread. Fed by
+ * {@link OrderStatusChangedEvent}s, which include changes made on other instances.
+ * <p>
+ * A subscription ends when the order reaches a final status, is deleted, or after
+ * {@code order-events.timeout-ms}; clients reconnect in the last case. A comment line is sent every
+ * {@code order-events.heartbeat-ms} so intermediaries keep the connection open and dead clients are
+ * noticed.
+ * <p>
+ * Changes can reach a subscriber out of order (the initial read races the first events, broadcasts from
+ * other instances overtake local ones), so each subscriber remembers the {@code updatedAt} of the last
+ * status it was sent and drops anything older.
+ */
+@Component
+public class OrderStatusStreamRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStatusStreamRegistry.class);
+
+    /**
+     * Statuses after which polling clients stop; a refund is started by an admin, not awaited by clients.
+     */
+    private static final Set<OrderStatus> FINAL_STATUSES = EnumSet.of(OrderStatus.PAID, OrderStatus.PAYMENT_FAILED,
+            OrderStatus.FAILED, OrderStatus.CANCELLED, OrderStatus.REFUNDED);
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final long timeoutMs;
+    private final int maxSubscribers;
+
+    public OrderStatusStreamRegistry(MeterRegistry meterRegistry,
+                                     @Value("${order-events.timeout-ms:300000}") long timeoutMs,
+                                     @Value("${order-events.max-subscribers:10000}") int maxSubscribers) {
+        this.timeoutMs = timeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        Gauge.builder("orders.status.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open order status SSE subscriptions on this instance")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens a stream for order {@code orderId} and sends its present status, so a client that subscribes
+     * after a transition still sees it. The emitter is registered before {@code current} is read, so a
+     * transition committed in between is delivered either way; {@code current} should read the primary,
+     * not a cache or replica, or it may be older than events already sent.
+     */
+    public SseEmitter subscribe(Long orderId, Supplier<Optional<OrderResponse>> current) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new InvalidOperationException("Too many open order status streams; poll GET /api/orders/{id} instead");
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs));
+        subscribers.computeIfAbsent(orderId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        Runnable remove = () -> remove(orderId, subscriber);
+        SseEmitter emitter = subscriber.emitter;
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        Optional<OrderResponse> order;
+        try {
+            order = current.get();
+        } catch (RuntimeException e) {
+            remove.run();
+            throw e;
+        }
+        OrderStatus status = order.map(OrderResponse::getStatus).orElse(null);
+        boolean delivered = order.isPresent()
+                ? subscriber.deliver(orderId, status, order.get().getStatusMessage(), order.get().getUpdatedAt())
+                : subscriber.deliver(orderId, null, null, null);
+        if (delivered && (status == null || FINAL_STATUSES.contains(status))) {
+            emitter.complete();
+        }
+        return emitter;
+    }
+
+    @EventListener
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getOrderId() == null) {
+            return;
+        }
+        Set<Subscriber> orderSubscribers = subscribers.get(event.getOrderId());
+        if (orderSubscribers == null) {
+            return;
+        }
+        boolean last = event.getStatus() == null || FINAL_STATUSES.contains(event.getStatus());
+        for (Subscriber subscriber : orderSubscribers) {
+            if (subscriber.deliver(event.getOrderId(), event.getStatus(), event.getStatusMessage(),
+                    event.getUpdatedAt()) && last) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order-events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> orderSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : orderSubscribers) {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    subscriber.emitter.completeWithError(e);
+                }
+            }
+        }
+    }
+
+    private static boolean send(SseEmitter emitter, Long orderId, OrderStatus status, String statusMessage) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("orderId", orderId);
+        data.put("status", status);
+        data.put("statusMessage", statusMessage);
+        try {
+            emitter.send(SseEmitter.event()
+                    .name(status == null ? "deleted" : "status")
+                    .data(data, MediaType.APPLICATION_JSON));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping order status subscriber: {}", e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void remove(Long orderId, Subscriber subscriber) {
+        subscribers.computeIfPresent(orderId, (id, orderSubscribers) -> {
+            if (orderSubscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return orderSubscribers.isEmpty() ? null : orderSubscribers;
+        });
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private OrderStatus lastStatus;
+        private LocalDateTime lastUpdatedAt;
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        /**
+         * Sends the change unless this subscriber was already sent the same or a newer one. A deletion
+         * ({@code status == null}) is always sent.
+         *
+         * @return whether the change was sent
+         */
+        private synchronized boolean deliver(Long orderId, OrderStatus status, String statusMessage,
+                                             LocalDateTime updatedAt) {
+            if (status != null && updatedAt != null && lastUpdatedAt != null
+                    && (updatedAt.isBefore(lastUpdatedAt) || (updatedAt.equals(lastUpdatedAt) && status == lastStatus))) {
+                return false;
+            }
+            if (!send(emitter, orderId, status, statusMessage)) {
+                return false;
+            }
+            lastStatus = status;
+            if (updatedAt != null) {
+                lastUpdatedAt = updatedAt;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.orderService.service;
+
+import org.example.common.exception.InvalidOperationException;
+import org.example.common.exception.ResourceNotFoundException;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.model.OrderEntity;
+import org.example.orderService.repository.OrderRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Compare-and-set status transitions, the primitive under {@link OrderStateMachine}; services go through
+ * the state machine so the transition's actions run. Each transition is one conditional UPDATE that only matches while
+ * the order is in one of {@link OrderStatus#predecessors()} of the target status, and returns the
+ * updated row together with the status it replaced. Concurrent events for the same order serialize on
+ * the row lock, and the loser sees the winner's status instead of overwriting it.
+ * <p>
+ * The statements are built once per target status with the predecessors inlined. The returned
+ * {@link OrderEntity} is detached: it reflects the row after the update, but changes to it are not saved.
+ */
+@Component
+public class OrderStatusTransitions {
+
+    /**
+     * An applied transition: {@code order} as it is now, the status it left and when it had entered
+     * that status.
+     */
+    public record Applied(OrderStatus from, LocalDateTime fromSince, OrderEntity order) {}
+
+    private static final RowMapper<Applied> APPLIED_MAPPER = (rs, rowNum) -> {
+        OrderEntity order = new OrderEntity();
+        order.setId(rs.getLong("id"));
+        order.setCustomerName(rs.getString("customer_name"));
+        order.setProductId(rs.getString("product_id"));
+        order.setQuantity(rs.getInt("quantity"));
+        order.setTotalPrice(rs.getBigDecimal("total_price"));
+        order.setStatus(OrderStatus.valueOf(rs.getString("status")));
+        order.setStatusMessage(rs.getString("status_message"));
+        order.setPaymentMethod(rs.getString("payment_method"));
+        order.setAmount(rs.getBigDecimal("amount"));
+        order.setCurrency(rs.getString("currency"));
+        order.setPaymentTransactionId(rs.getString("payment_transaction_id"));
+        order.setUsername(rs.getString("username"));
+        order.setCheckoutId(rs.getString("checkout_id"));
+        order.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        order.setUpdatedAt(toLocalDateTime(rs.getTimestamp("updated_at")));
+        return new Applied(OrderStatus.valueOf(rs.getString("previous_status")),
+                toLocalDateTime(rs.getTimestamp("previous_since")), order);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderRepository orderRepository;
+    private final Map<OrderStatus, String> statements = new EnumMap<>(OrderStatus.class);
+    private final String[][] pairStatements = new String[OrderStatus.values().length][OrderStatus.values().length];
+
+    public OrderStatusTransitions(JdbcTemplate jdbcTemplate, OrderRepository orderRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderRepository = orderRepository;
+        for (OrderStatus next : OrderStatus.values()) {
+            if (!next.predecessors().isEmpty()) {
+                statements.put(next, compile(next.predecessors(), next));
+            }
+            for (OrderStatus from : next.predecessors()) {
+                pairStatements[from.ordinal()][next.ordinal()] = compile(Set.of(from), next);
+            }
+        }
+    }
+
+    // The locking subquery reads the current status, so previous_status is exact even under contention.
+    private static String compile(Set<OrderStatus> from, OrderStatus next) {
+        String predecessors = from.stream()
+                .map(status -> "'" + status.name() + "'")
+                .collect(Collectors.joining(", "));
+        return "UPDATE orders o SET status = '" + next.name() + "', updated_at = ?, "
+                + "status_message = COALESCE(?, o.status_message), "
+                + "payment_transaction_id = COALESCE(?, o.payment_transaction_id) "
+                + "FROM (SELECT id, status, COALESCE(updated_at, created_at) AS since "
+                + "      FROM orders WHERE id = ? FOR UPDATE) previous "
+                + "WHERE o.id = previous.id AND previous.status IN (" + predecessors + ") "
+                + "RETURNING o.*, previous.status AS previous_status, previous.since AS previous_since";
+    }
+
+    /**
+     * Moves order {@code id} to {@code next} if its current status allows it.
+     *
+     * @return the applied transition, or empty if the order does not exist or is in a status from which
+     * {@code next} cannot be reached
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Applied> transition(Long id, OrderStatus next) {
+        return transition(id, next, null, null);
+    }
+
+    /**
+     * Like {@link #transition(Long, OrderStatus)}, also setting the status message and payment
+     * transaction id where they are not {@code null}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Applied> transition(Long id, OrderStatus next, String statusMessage, String paymentTransactionId) {
+        String sql = statements.get(next);
+        if (sql == null) {
+            return Optional.empty();
+        }
+        List<Applied> applied = jdbcTemplate.query(sql, APPLIED_MAPPER,
+                Timestamp.valueOf(LocalDateTime.now()), statusMessage, paymentTransactionId, id);
+        return applied.stream().findFirst();
+    }
+
+    /**
+     * Moves order {@code id} from {@code from} to {@code next}, only if it is still in {@code from}.
+     *
+     * @return the applied transition, or empty if the order does not exist, is no longer in {@code from},
+     * or {@code from} cannot transition to {@code next}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Applied> transitionFrom(Long id, OrderStatus from, OrderStatus next, String statusMessage) {
+        String sql = pairStatements[from.ordinal()][next.ordinal()];
+        if (sql == null) {
+            return Optional.empty();
+        }
+        List<Applied> applied = jdbcTemplate.query(sql, APPLIED_MAPPER,
+                Timestamp.valueOf(LocalDateTime.now()), statusMessage, null, id);
+        return applied.stream().findFirst();
+    }
+
+    /**
+     * Like {@link #transition(Long, OrderStatus)}, but fails if the transition does not apply.
+     *
+     * @throws ResourceNotFoundException if the order does not exist
+     * @throws InvalidOperationException if the order's current status does not allow {@code next}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Applied require(Long id, OrderStatus next) {
+        return transition(id, next).orElseThrow(() -> {
+            OrderStatus current = orderRepository.findStatusById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order", "id", id));
+            return new InvalidOperationException("Invalid order status transition: " + current + " -> " + next);
+        });
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -1,25 +1,48 @@
 package org.example.orderService.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock;
+import org.example.common.outbox.OutboxRetryBackoff;
+import org.example.common.outbox.RoutingKeyCircuitBreaker;
 import org.example.orderService.model.OutboxEvent;
 import org.example.orderService.repository.OutboxEventRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
 
 @Component
 public class OutboxEventProcessor {
@@ -27,77 +50,439 @@ public class OutboxEventProcessor {
     private static final Logger log = LoggerFactory.getLogger(OutboxEventProcessor.class);
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
-    private static final long STUCK_PROCESSING_MINUTES = 10;
-
-    public static final int CLEANUP_RETENTION_DAYS = 7;
-
     private final OutboxEventRepository outboxEventRepository;
     private final RabbitTemplate rabbitTemplate;
+    private final OutboxPartitionCoordinator partitionCoordinator;
+    private final TransactionTemplate transactionTemplate;
     private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+    private final Queue<Long> committedEventIds = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean commitDrainScheduled = new AtomicBoolean();
+    private final AtomicBoolean partitionRelayScheduled = new AtomicBoolean();
+    private final String instanceId = resolveInstanceId();
+
+    private final boolean batchMode;
+    private final boolean partitionedMode;
+    private final boolean confirmsEnabled;
+    private final int batchSize;
+    private final long confirmTimeoutMs;
+    private final int leaseSeconds;
+    private final OutboxRetryBackoff retryBackoff;
+    private final RoutingKeyCircuitBreaker circuitBreaker;
+    private final Timer pollDispatchLatency;
+    private final Timer commitDispatchLatency;
 
     public OutboxEventProcessor(OutboxEventRepository outboxEventRepository,
-                                RabbitTemplate rabbitTemplate) {
+                                RabbitTemplate rabbitTemplate,
+                                OutboxPartitionCoordinator partitionCoordinator,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${outbox.relay.mode:single}") String relayMode,
+                                @Value("${outbox.relay.batch-size:500}") int batchSize,
+                                @Value("${outbox.relay.confirm-timeout-ms:5000}") long confirmTimeoutMs,
+                                @Value("${outbox.relay.lease-seconds:30}") int leaseSeconds,
+                                @Value("${outbox.retry.base-delay-ms:1000}") long retryBaseDelayMs,
+                                @Value("${outbox.retry.max-delay-ms:300000}") long retryMaxDelayMs,
+                                @Value("${outbox.circuit.failure-threshold:5}") int circuitFailureThreshold,
+                                @Value("${outbox.circuit.open-ms:30000}") long circuitOpenMs) {
         this.outboxEventRepository = outboxEventRepository;
         this.rabbitTemplate = rabbitTemplate;
+        this.partitionCoordinator = partitionCoordinator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.confirmTimeoutMs = confirmTimeoutMs;
+        this.leaseSeconds = leaseSeconds;
+        this.retryBackoff = new OutboxRetryBackoff(
+                Duration.ofMillis(retryBaseDelayMs), Duration.ofMillis(retryMaxDelayMs));
+        this.circuitBreaker = new RoutingKeyCircuitBreaker(
+                circuitFailureThreshold, Duration.ofMillis(circuitOpenMs));
+
+        this.pollDispatchLatency = dispatchLatencyTimer(meterRegistry, "poll");
+        this.commitDispatchLatency = dispatchLatencyTimer(meterRegistry, "commit");
+
+        boolean batchRequested = "batch".equalsIgnoreCase(relayMode);
+        this.confirmsEnabled = rabbitTemplate.getConnectionFactory().isPublisherConfirms();
+        if (batchRequested && !confirmsEnabled) {
+            log.warn("outbox.relay.mode=batch requires spring.rabbitmq.publisher-confirm-type=correlated. "
+                    + "Falling back to single-event relay.");
+        }
+        this.batchMode = batchRequested && confirmsEnabled;
+        this.partitionedMode = partitionCoordinator.isEnabled();
+    }
+
+    private static Timer dispatchLatencyTimer(MeterRegistry meterRegistry, String trigger) {
+        return Timer.builder("outbox.dispatch.latency")
+                .description("Time from outbox row creation (commit) to confirmed broker publish")
+                .tag("trigger", trigger)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wakes the relay for {@code outboxEventId} as soon as the surrounding transaction commits, so the
+     * event does not wait for the next poll. Without an active transaction the row is already committed
+     * and is dispatched right away. The scheduled poller remains the safety net for anything missed here.
+     */
+    public void dispatchAfterCommit(Long outboxEventId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueueCommitted(outboxEventId);
+                }
+            });
+        } else {
+            enqueueCommitted(outboxEventId);
+        }
+    }
+
+    private void enqueueCommitted(Long outboxEventId) {
+        if (partitionedMode) {
+            // Only the partition owner may publish an order's events; wake the local partition relay
+            // and leave the row to whichever instance owns it.
+            schedulePartitionedRelay(commitDispatchLatency);
+            return;
+        }
+        committedEventIds.add(outboxEventId);
+        if (commitDrainScheduled.compareAndSet(false, true)) {
+            singleThreadExecutor.execute(this::drainCommitted);
+        }
+    }
+
+    private void drainCommitted() {
+        commitDrainScheduled.set(false);
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = committedEventIds.poll()) != null) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            List<OutboxEvent> claimed = transactionTemplate.execute(status -> claimAdmitted(
+                    sortedById(outboxEventRepository.findAllById(ids)).stream()
+                            .filter(e -> e.getStatus() == OutboxEvent.EventStatus.PENDING)
+                            .toList()));
+            if (claimed != null && !claimed.isEmpty()) {
+                publishClaimed(claimed, commitDispatchLatency);
+            }
+        } catch (Exception e) {
+            log.warn("Commit-triggered dispatch of outbox events {} failed; the poller will pick them up: {}",
+                    ids, e.getMessage());
+        }
     }
 
     @Scheduled(fixedDelay = 5000)
     @SchedulerLock(name = "OrderService_processOutboxEvents", lockAtLeastFor = "4s", lockAtMostFor = "1m")
     public void processOutboxEvents() {
-        List<OutboxEvent> pendingEvents = outboxEventRepository
-                .findByStatusOrderByCreatedAtAsc(OutboxEvent.EventStatus.PENDING, PageRequest.of(0, 100));
+        transactionTemplate.executeWithoutResult(status -> requeueExpiredLeases());
+
+        if (partitionedMode) {
+            // Every instance relays its own partitions from relayPartitionsTick().
+            return;
+        }
+
+        if (batchMode) {
+            relayBatch();
+            return;
+        }
+
+        List<OutboxEvent> pendingEvents = outboxEventRepository.findDuePending(
+                LocalDateTime.now(), circuitBreaker.openRoutingKeysOrPlaceholder(), PageRequest.of(0, 100));
 
         if (pendingEvents.isEmpty()) {
             return;
         }
 
-        for (OutboxEvent event : pendingEvents) {
-            processSingleEvent(event);
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> claimAdmitted(pendingEvents));
+        if (claimed != null) {
+            claimed.forEach(this::processSingleEvent);
         }
     }
 
-    @Transactional
+    @Scheduled(fixedDelayString = "${outbox.relay.partition-poll-ms:1000}")
+    public void relayPartitionsTick() {
+        if (partitionedMode) {
+            schedulePartitionedRelay(pollDispatchLatency);
+        }
+    }
+
+    private void schedulePartitionedRelay(Timer dispatchLatency) {
+        if (!partitionRelayScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        singleThreadExecutor.execute(() -> {
+            partitionRelayScheduled.set(false);
+            try {
+                int claimed;
+                do {
+                    claimed = relayOwnedPartitions(dispatchLatency);
+                } while (claimed >= batchSize);
+            } catch (Exception e) {
+                log.warn("Partitioned outbox relay failed; retrying on the next tick: {}", e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Relays one page of PENDING events from the partitions this instance currently owns. The partition
+     * query only returns an order's oldest unsettled event, so a page holds at most one event per order
+     * and a failed event keeps every later event of its order out of the following pages until it is
+     * published.
+     *
+     * @return number of events claimed, so the caller can keep draining a backlog
+     */
+    private int relayOwnedPartitions(Timer dispatchLatency) {
+        Set<Integer> partitions = partitionCoordinator.currentPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> claimAdmitted(
+                outboxEventRepository.findPendingInPartitions(
+                        partitionCoordinator.getPartitionCount(), partitions, LocalDateTime.now(),
+                        circuitBreaker.openRoutingKeysOrPlaceholder(), batchSize)));
+        if (claimed == null || claimed.isEmpty()) {
+            return 0;
+        }
+        publishClaimed(claimed, dispatchLatency);
+        return claimed.size();
+    }
+
     public void processSingleEvent(OutboxEvent event) {
         try {
             publishEvent(event);
-            event.setStatus(OutboxEvent.EventStatus.COMPLETED);
-            event.setProcessedAt(LocalDateTime.now());
-            log.info("Outbox event {} published successfully for order {}",
-                    event.getId(), event.getOrderId());
         } catch (Exception e) {
-            event.setRetryCount(event.getRetryCount() + 1);
-            event.setErrorMessage(e.getMessage());
-
-            if (event.canRetry()) {
-                log.warn("Outbox event {} failed (attempt {}/5) for order {}: {}",
-                        event.getId(), event.getRetryCount(), event.getOrderId(), e.getMessage());
+            circuitBreaker.recordFailure(event.getRoutingKey());
+            int retryCount = event.getRetryCount() + 1;
+            event.setRetryCount(retryCount);
+            OutboxEvent.EventStatus next = event.canRetry()
+                    ? OutboxEvent.EventStatus.PENDING
+                    : OutboxEvent.EventStatus.FAILED;
+            LocalDateTime nextAttemptAt = retryBackoff.nextAttemptAt(retryCount);
+            Integer settled = transactionTemplate.execute(status -> outboxEventRepository.recordFailedAttemptIfOwned(
+                    next, retryCount, e.getMessage(), nextAttemptAt, event.getId(), instanceId));
+            if (settled == null || settled == 0) {
+                log.warn("Outbox event {} failed after its lease expired; leaving it to the current holder: {}",
+                        event.getId(), e.getMessage());
+            } else if (next == OutboxEvent.EventStatus.PENDING) {
+                log.warn("Outbox event {} failed (attempt {}/5) for order {}, next attempt at {}: {}",
+                        event.getId(), retryCount, event.getOrderId(), nextAttemptAt, e.getMessage());
             } else {
-                event.setStatus(OutboxEvent.EventStatus.FAILED);
                 log.error("Outbox event {} PERMANENTLY FAILED for order {}. "
                                 + "MANUAL INTERVENTION REQUIRED. Payload: {}",
                         event.getId(), event.getOrderId(), event.getPayload(), e);
             }
+            return;
+        }
+        circuitBreaker.recordSuccess(event.getRoutingKey());
+
+        Integer settled = transactionTemplate.execute(status -> outboxEventRepository.markCompletedIfOwned(
+                OutboxEvent.EventStatus.COMPLETED, LocalDateTime.now(), List.of(event.getId()), instanceId));
+        if (settled == null || settled == 0) {
+            log.warn("Outbox event {} was published after its lease expired; another instance may publish it again.",
+                    event.getId());
+            return;
         }
-        outboxEventRepository.save(event);
+        recordDispatchLatency(event, pollDispatchLatency);
+        log.info("Outbox event {} published successfully for order {}",
+                event.getId(), event.getOrderId());
     }
 
-    @Scheduled(cron = "0 0 3 * * SUN")
-    @SchedulerLock(name = "OutboxEventProcessor_weeklyCleanup", lockAtLeastFor = "1m", lockAtMostFor = "10m")
-    @Transactional
-    public void weeklyCleanup() {
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(CLEANUP_RETENTION_DAYS);
-        List<OutboxEvent.EventStatus> terminal = Arrays.asList(
-                OutboxEvent.EventStatus.COMPLETED,
-                OutboxEvent.EventStatus.FAILED);
-        int deleted = outboxEventRepository.deleteOldTerminalEvents(terminal, cutoff);
-        log.info("Weekly outbox cleanup completed: deleted {} terminal events older than {} days (cutoff={}).",
-                deleted, CLEANUP_RETENTION_DAYS, cutoff);
+    /**
+     * Claims a page of PENDING rows, publishes them back-to-back on one channel and waits for the
+     * broker confirms as a group, then settles the whole page with two bulk UPDATEs.
+     */
+    private void relayBatch() {
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> claimPendingBatch());
+        if (claimed == null || claimed.isEmpty()) {
+            return;
+        }
+        publishClaimed(claimed, pollDispatchLatency);
+    }
+
+    private void requeueExpiredLeases() {
+        int requeued = outboxEventRepository.requeueExpiredProcessingEvents(OutboxEvent.EventStatus.PENDING);
+        if (requeued > 0) {
+            log.warn("Requeued {} outbox events whose relay lease expired in PROCESSING", requeued);
+        }
+    }
+
+    private List<OutboxEvent> claimPendingBatch() {
+        return claimAdmitted(outboxEventRepository.findDuePending(
+                LocalDateTime.now(), circuitBreaker.openRoutingKeysOrPlaceholder(), PageRequest.of(0, batchSize)));
+    }
+
+    /**
+     * Claims the rows of {@code page} the circuit breaker lets through: every row of a closed routing key,
+     * and a single probe row of a key whose open period has elapsed. Returns the claimed rows in page order.
+     * A probe whose row another instance claimed first is released, so the circuit does not sit half-open
+     * until the probe deadline.
+     */
+    private List<OutboxEvent> claimAdmitted(List<OutboxEvent> page) {
+        List<OutboxEvent> admitted = page.stream()
+                .filter(e -> circuitBreaker.tryAcquire(e.getRoutingKey()))
+                .toList();
+        if (admitted.isEmpty()) {
+            return admitted;
+        }
+        Set<Long> claimedIds;
+        try {
+            claimedIds = Set.copyOf(outboxEventRepository
+                    .claimPendingByIds(admitted.stream().map(OutboxEvent::getId).toList(), instanceId, leaseSeconds));
+        } catch (RuntimeException e) {
+            admitted.forEach(event -> circuitBreaker.release(event.getRoutingKey()));
+            throw e;
+        }
+        List<OutboxEvent> claimed = new ArrayList<>(admitted.size());
+        for (OutboxEvent event : admitted) {
+            if (claimedIds.contains(event.getId())) {
+                claimed.add(event);
+            } else {
+                circuitBreaker.release(event.getRoutingKey());
+            }
+        }
+        return claimed;
+    }
+
+    private void publishClaimed(List<OutboxEvent> claimed, Timer dispatchLatency) {
+        Map<Long, String> failures = new LinkedHashMap<>();
+        List<OutboxEvent> published;
+
+        if (confirmsEnabled) {
+            List<PendingConfirm> inFlight = new ArrayList<>(claimed.size());
+            for (OutboxEvent event : claimed) {
+                CorrelationData correlation = new CorrelationData(String.valueOf(event.getId()));
+                try {
+                    rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), toMessage(event), correlation);
+                    inFlight.add(new PendingConfirm(event, correlation));
+                } catch (Exception e) {
+                    failures.put(event.getId(), e.getMessage());
+                }
+            }
+            published = awaitConfirms(inFlight, failures);
+        } else {
+            published = new ArrayList<>(claimed.size());
+            for (OutboxEvent event : claimed) {
+                try {
+                    publishEvent(event);
+                    published.add(event);
+                } catch (Exception e) {
+                    failures.put(event.getId(), e.getMessage());
+                }
+            }
+        }
+
+        for (OutboxEvent event : claimed) {
+            if (failures.containsKey(event.getId())) {
+                circuitBreaker.recordFailure(event.getRoutingKey());
+            } else {
+                circuitBreaker.recordSuccess(event.getRoutingKey());
+            }
+        }
+        settleBatch(published.stream().map(OutboxEvent::getId).toList(), failures, claimed);
+        published.forEach(event -> recordDispatchLatency(event, dispatchLatency));
+
+        log.info("Outbox events relayed: claimed={}, published={}, failed={}",
+                claimed.size(), published.size(), failures.size());
+    }
+
+    private List<OutboxEvent> awaitConfirms(List<PendingConfirm> inFlight, Map<Long, String> failures) {
+        List<OutboxEvent> confirmed = new ArrayList<>(inFlight.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+
+        for (PendingConfirm pending : inFlight) {
+            Long id = pending.event().getId();
+            try {
+                long remaining = Math.max(0L, deadline - System.nanoTime());
+                CorrelationData.Confirm confirm = pending.correlation().getFuture().get(remaining, TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmed.add(pending.event());
+                } else {
+                    failures.put(id, "Broker nack: " + confirm.getReason());
+                }
+            } catch (TimeoutException e) {
+                failures.put(id, "Publisher confirm not received within " + confirmTimeoutMs + "ms");
+            } catch (ExecutionException e) {
+                failures.put(id, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(id, "Interrupted while awaiting publisher confirm");
+            }
+        }
+        return confirmed;
+    }
+
+    private void settleBatch(List<Long> confirmed, Map<Long, String> failures, List<OutboxEvent> claimed) {
+        Map<Long, Integer> attemptById = claimed.stream()
+                .collect(Collectors.toMap(OutboxEvent::getId, e -> e.getRetryCount() + 1));
+        Map<String, List<Long>> failedByReason = failures.entrySet().stream()
+                .collect(Collectors.groupingBy(
+                        e -> String.valueOf(e.getValue()),
+                        LinkedHashMap::new,
+                        Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!confirmed.isEmpty()) {
+                int completed = outboxEventRepository.markCompletedIfOwned(
+                        OutboxEvent.EventStatus.COMPLETED, LocalDateTime.now(), confirmed, instanceId);
+                if (completed < confirmed.size()) {
+                    log.warn("{} outbox events were published after their lease expired; "
+                            + "another instance may publish them again.", confirmed.size() - completed);
+                }
+            }
+            for (Map.Entry<String, List<Long>> entry : failedByReason.entrySet()) {
+                List<Long> ids = entry.getValue();
+                int exhausted = 0;
+                for (Long id : ids) {
+                    int attempt = attemptById.getOrDefault(id, 1);
+                    OutboxEvent.EventStatus next = attempt < OutboxEvent.MAX_RETRIES
+                            ? OutboxEvent.EventStatus.PENDING
+                            : OutboxEvent.EventStatus.FAILED;
+                    int settled = outboxEventRepository.recordFailedAttemptIfOwned(next, attempt, entry.getKey(),
+                            retryBackoff.nextAttemptAt(attempt), id, instanceId);
+                    if (settled > 0 && next == OutboxEvent.EventStatus.FAILED) {
+                        exhausted++;
+                    }
+                }
+                if (exhausted > 0) {
+                    log.error("{} outbox events PERMANENTLY FAILED. MANUAL INTERVENTION REQUIRED. Last error: {}",
+                            exhausted, entry.getKey());
+                }
+                log.warn("Outbox events {} failed to publish: {}", ids, entry.getKey());
+            }
+        });
     }
 
     private void publishEvent(OutboxEvent event) throws Exception {
+        rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), toMessage(event));
+    }
+
+    private void recordDispatchLatency(OutboxEvent event, Timer dispatchLatency) {
+        if (event.getCreatedAt() != null) {
+            dispatchLatency.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+        }
+    }
+
+    private static List<OutboxEvent> sortedById(List<OutboxEvent> events) {
+        return events.stream().sorted(Comparator.comparing(OutboxEvent::getId)).toList();
+    }
+
+    private Message toMessage(OutboxEvent event) {
         MessageProperties props = new MessageProperties();
         props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
-        Message message = new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), props);
-        rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), message);
+        return new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), props);
+    }
+
+    private record PendingConfirm(OutboxEvent event, CorrelationData correlation) {}
+
+    private static String resolveInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
     }
 }
@@ -0,0 +1,162 @@
+package org.example.orderService.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits the outbox into {@code outbox.relay.partitions} partitions ({@code mod(order_id, partitions)})
+ * and leases a fair share of them to every live OrderService instance, so each replica relays its own
+ * slice of the outbox instead of one ShedLock holder relaying all of it.
+ * <p>
+ * Instances heartbeat into {@code outbox_relay_nodes}. On every rebalance tick an instance renews the
+ * leases it holds, gives back partitions above {@code ceil(partitions / liveNodes)} (a node joined) and
+ * picks up unowned or expired partitions below it (a node left or crashed). All timestamps come from the
+ * database clock, like the ShedLock provider.
+ */
+@Component
+public class OutboxPartitionCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPartitionCoordinator.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int partitionCount;
+    private final int leaseSeconds;
+    private final String nodeId;
+
+    private volatile Set<Integer> ownedPartitions = Set.of();
+    private volatile long leaseValidUntilNanos;
+
+    public OutboxPartitionCoordinator(JdbcTemplate jdbcTemplate,
+                                      PlatformTransactionManager transactionManager,
+                                      @Value("${outbox.relay.mode:single}") String relayMode,
+                                      @Value("${outbox.relay.partitions:32}") int partitionCount,
+                                      @Value("${outbox.relay.lease-seconds:30}") int leaseSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = "partitioned".equalsIgnoreCase(relayMode);
+        this.partitionCount = partitionCount;
+        this.leaseSeconds = leaseSeconds;
+        this.nodeId = resolveNodeId();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Partitions this instance may relay right now. Empty once the local view of the lease has run out,
+     * so a node that stopped renewing (long GC pause, lost DB connection) stops publishing before another
+     * node can take its partitions over.
+     */
+    public Set<Integer> currentPartitions() {
+        if (System.nanoTime() - leaseValidUntilNanos >= 0) {
+            return Set.of();
+        }
+        return ownedPartitions;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay.rebalance-interval-ms:5000}")
+    public void rebalance() {
+        if (!enabled) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            Set<Integer> owned = transactionTemplate.execute(status -> heartbeatAndRebalance());
+            // Trust the lease for half its length locally; the next tick renews it well before it expires.
+            leaseValidUntilNanos = startedAt + TimeUnit.SECONDS.toNanos(leaseSeconds) / 2;
+            if (!owned.equals(ownedPartitions)) {
+                log.info("Outbox relay node {} now owns {} of {} partitions: {}",
+                        nodeId, owned.size(), partitionCount, owned);
+            }
+            ownedPartitions = owned;
+        } catch (Exception e) {
+            log.warn("Outbox partition rebalance failed for node {}: {}", nodeId, e.getMessage());
+        }
+    }
+
+    private Set<Integer> heartbeatAndRebalance() {
+        jdbcTemplate.update("INSERT INTO outbox_partitions (partition_id) "
+                + "SELECT generate_series(0, ? - 1) ON CONFLICT (partition_id) DO NOTHING", partitionCount);
+        jdbcTemplate.update("INSERT INTO outbox_relay_nodes (node_id, heartbeat_at) VALUES (?, now()) "
+                + "ON CONFLICT (node_id) DO UPDATE SET heartbeat_at = EXCLUDED.heartbeat_at", nodeId);
+        jdbcTemplate.update("DELETE FROM outbox_relay_nodes "
+                + "WHERE heartbeat_at < now() - make_interval(secs => ?)", leaseSeconds);
+
+        Integer liveNodes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_relay_nodes", Integer.class);
+        int live = Math.max(1, liveNodes == null ? 0 : liveNodes);
+        int fairShare = (partitionCount + live - 1) / live;
+
+        Set<Integer> owned = new TreeSet<>(jdbcTemplate.queryForList(
+                "UPDATE outbox_partitions SET lease_until = now() + make_interval(secs => ?) "
+                        + "WHERE owner = ? AND partition_id < ? RETURNING partition_id",
+                Integer.class, leaseSeconds, nodeId, partitionCount));
+
+        if (owned.size() > fairShare) {
+            List<Integer> excess = owned.stream().skip(fairShare).toList();
+            for (Integer partition : excess) {
+                jdbcTemplate.update("UPDATE outbox_partitions SET owner = NULL, lease_until = NULL "
+                        + "WHERE partition_id = ? AND owner = ?", partition, nodeId);
+            }
+            excess.forEach(owned::remove);
+        } else if (owned.size() < fairShare) {
+            owned.addAll(jdbcTemplate.queryForList(
+                    "UPDATE outbox_partitions SET owner = ?, lease_until = now() + make_interval(secs => ?) "
+                            + "WHERE partition_id IN (SELECT partition_id FROM outbox_partitions "
+                            + "  WHERE partition_id < ? AND (owner IS NULL OR lease_until < now()) "
+                            + "  ORDER BY partition_id LIMIT ? FOR UPDATE SKIP LOCKED) "
+                            + "RETURNING partition_id",
+                    Integer.class, nodeId, leaseSeconds, partitionCount, fairShare - owned.size()));
+        }
+        return Set.copyOf(owned);
+    }
+
+    @PreDestroy
+    public void releasePartitions() {
+        if (!enabled) {
+            return;
+        }
+        ownedPartitions = Set.of();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("UPDATE outbox_partitions SET owner = NULL, lease_until = NULL WHERE owner = ?",
+                        nodeId);
+                jdbcTemplate.update("DELETE FROM outbox_relay_nodes WHERE node_id = ?", nodeId);
+            });
+            log.info("Outbox relay node {} released its partitions", nodeId);
+        } catch (Exception e) {
+            log.warn("Failed to release outbox partitions for node {}; leases will expire: {}",
+                    nodeId, e.getMessage());
+        }
+    }
+
+    private static String resolveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
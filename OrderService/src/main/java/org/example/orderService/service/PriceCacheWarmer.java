@@ -0,0 +1,138 @@
+package org.example.orderService.service;
+
+import org.example.common.exception.InvalidOperationException;
+import org.example.orderService.client.ProductServiceClient;
+import org.example.orderService.dto.ProductCatalogPage;
+import org.example.orderService.dto.admin.PriceCacheWarmupDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fills {@code product_price_cache} from ProductService's catalog snapshot, so a fresh or wiped instance
+ * does not pay a remote call for every product it has not yet seen a ProductUpdatedEvent for.
+ * <p>
+ * The startup warm-up runs synchronously in the {@link ApplicationReadyEvent} listener. Spring Boot only
+ * switches the readiness state to {@code ACCEPTING_TRAFFIC} after the ready listeners return, so the
+ * instance reports ready once the cache is warm. A warm-up that fails or exceeds
+ * {@code price-warmup.max-duration-seconds} is abandoned and the instance starts with a partly filled
+ * cache; misses still fall back to ProductService.
+ */
+@Component
+public class PriceCacheWarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceCacheWarmer.class);
+
+    private final ProductServiceClient productServiceClient;
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductPriceResolver productPriceResolver;
+    private final boolean enabledOnStartup;
+    private final int pageSize;
+    private final long maxDurationMs;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public PriceCacheWarmer(ProductServiceClient productServiceClient,
+                            JdbcTemplate jdbcTemplate,
+                            ProductPriceResolver productPriceResolver,
+                            @Value("${price-warmup.enabled:true}") boolean enabledOnStartup,
+                            @Value("${price-warmup.page-size:1000}") int pageSize,
+                            @Value("${price-warmup.max-duration-seconds:120}") long maxDurationSeconds) {
+        this.productServiceClient = productServiceClient;
+        this.jdbcTemplate = jdbcTemplate;
+        this.productPriceResolver = productPriceResolver;
+        this.enabledOnStartup = enabledOnStartup;
+        this.pageSize = pageSize;
+        this.maxDurationMs = maxDurationSeconds * 1000;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpOnStartup() {
+        if (!enabledOnStartup) {
+            return;
+        }
+        PriceCacheWarmupDto result = warmUp();
+        log.info("Startup price cache warm-up {}: {} products in {} pages, {} ms",
+                result.status(), result.productsLoaded(), result.pages(), result.durationMs());
+    }
+
+    /**
+     * Pages through the whole catalog and upserts it into {@code product_price_cache}. Rows written by a
+     * ProductUpdatedEvent after the warm-up started are newer than the snapshot and are left alone. After
+     * each page, the {@link ProductPriceResolver} in-memory tier gets the prices that were written, so it
+     * does not keep serving what it cached before the warm-up.
+     */
+    public PriceCacheWarmupDto warmUp() {
+        if (!running.compareAndSet(false, true)) {
+            throw new InvalidOperationException("A price cache warm-up is already running");
+        }
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime snapshotStartedAt = LocalDateTime.now();
+        long loaded = 0;
+        int pages = 0;
+        String cursor = null;
+        try {
+            do {
+                if (System.currentTimeMillis() - startedAt > maxDurationMs) {
+                    log.warn("Price cache warm-up stopped after {} ms at cursor {}", maxDurationMs, cursor);
+                    return new PriceCacheWarmupDto("TIMED_OUT", loaded, pages, System.currentTimeMillis() - startedAt);
+                }
+                ProductCatalogPage page = productServiceClient.getCatalogPage(cursor, pageSize);
+                if (page == null) {
+                    break;
+                }
+                upsert(page.items(), snapshotStartedAt);
+                loaded += page.items().size();
+                pages++;
+                cursor = page.nextCursor();
+            } while (cursor != null);
+            return new PriceCacheWarmupDto("COMPLETED", loaded, pages, System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.warn("Price cache warm-up failed after {} products at cursor {}: {}", loaded, cursor, e.getMessage());
+            return new PriceCacheWarmupDto("FAILED", loaded, pages, System.currentTimeMillis() - startedAt);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void upsert(List<ProductCatalogPage.Item> items, LocalDateTime snapshotStartedAt) {
+        if (items.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp snapshotStart = Timestamp.valueOf(snapshotStartedAt);
+        int[][] counts = jdbcTemplate.batchUpdate(
+                "INSERT INTO product_price_cache (product_id, name, price, updated_at) VALUES (?, ?, ?, ?) "
+                        + "ON CONFLICT (product_id) DO UPDATE SET name = EXCLUDED.name, price = EXCLUDED.price, "
+                        + "updated_at = EXCLUDED.updated_at "
+                        + "WHERE product_price_cache.updated_at IS NULL OR product_price_cache.updated_at < ?",
+                items, items.size(), (ps, item) -> {
+                    ps.setString(1, item.id());
+                    ps.setString(2, item.name());
+                    ps.setBigDecimal(3, item.price());
+                    ps.setTimestamp(4, now);
+                    ps.setTimestamp(5, snapshotStart);
+                });
+        int[] written = counts.length == 0 ? new int[0] : counts[0];
+        for (int i = 0; i < items.size(); i++) {
+            ProductCatalogPage.Item item = items.get(i);
+            int count = i < written.length ? written[i] : Statement.SUCCESS_NO_INFO;
+            // A count of 0 means a newer ProductUpdatedEvent kept its row and already updated the resolver.
+            if (count > 0) {
+                productPriceResolver.update(item.id(), item.price());
+            } else if (count != 0) {
+                // The driver did not say whether the snapshot row won; reload from the table on next use.
+                productPriceResolver.update(item.id(), null);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.orderService.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.example.common.exception.ResourceNotFoundException;
+import org.example.orderService.client.ProductServiceClient;
+import org.example.orderService.dto.ProductResponse;
+import org.example.orderService.model.ProductPriceCache;
+import org.example.orderService.repository.ProductPriceCacheRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves product prices for order creation through three tiers: a bounded in-process cache, the
+ * {@code product_price_cache} table fed by ProductUpdatedEvents, and finally ProductService itself.
+ * Whatever a lower tier returns is cached in memory; remote results are also written back to the table.
+ * Unknown products are cached as misses for a short time so a bad SKU does not cost a remote call on
+ * every order. Cache statistics are published as {@code cache.*} metrics with {@code cache=productPrices}.
+ * <p>
+ * Concurrent misses for the same product are coalesced: the first caller loads the price and the others
+ * wait for its result, so a product launch costs one remote call rather than one per order. Callers that
+ * joined an in-flight load are counted in {@code price.lookups.coalesced}.
+ */
+@Component
+public class ProductPriceResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductPriceResolver.class);
+
+    private final ProductPriceCacheRepository productPriceCacheRepository;
+    private final ProductServiceClient productServiceClient;
+    private final Cache<String, CachedPrice> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<CachedPrice>> inFlight = new ConcurrentHashMap<>();
+    private final Counter loads;
+    private final Counter coalesced;
+
+    public ProductPriceResolver(ProductPriceCacheRepository productPriceCacheRepository,
+                                ProductServiceClient productServiceClient,
+                                MeterRegistry meterRegistry,
+                                @Value("${price-cache.max-size:10000}") long maxSize,
+                                @Value("${price-cache.ttl-seconds:300}") long ttlSeconds,
+                                @Value("${price-cache.negative-ttl-seconds:10}") long negativeTtlSeconds) {
+        this.productPriceCacheRepository = productPriceCacheRepository;
+        this.productServiceClient = productServiceClient;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PriceExpiry(TimeUnit.SECONDS.toNanos(ttlSeconds),
+                        TimeUnit.SECONDS.toNanos(negativeTtlSeconds)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "productPrices");
+        this.loads = Counter.builder("price.lookups.loads")
+                .description("Price cache misses that loaded the price from the table or ProductService")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("price.lookups.coalesced")
+                .description("Price cache misses that waited for another caller's in-flight load")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @throws ResourceNotFoundException if neither the local table nor ProductService knows the product
+     */
+    public BigDecimal resolvePrice(String productId) {
+        CachedPrice cached = cache.getIfPresent(productId);
+        if (cached == null) {
+            cached = loadOnce(productId);
+        }
+        if (cached.isMissing()) {
+            throw new ResourceNotFoundException("Product price not found locally or remotely for id: " + productId);
+        }
+        return cached.price();
+    }
+
+    /**
+     * Applies a ProductUpdatedEvent to the in-memory tier (the caller persists it to the table). An event
+     * without a price invalidates the entry so the next lookup reloads it.
+     */
+    public void update(String productId, BigDecimal price) {
+        if (price == null) {
+            cache.invalidate(productId);
+        } else {
+            cache.put(productId, new CachedPrice(price));
+        }
+    }
+
+    private CachedPrice loadOnce(String productId) {
+        CompletableFuture<CachedPrice> mine = new CompletableFuture<>();
+        CompletableFuture<CachedPrice> running = inFlight.putIfAbsent(productId, mine);
+        if (running != null) {
+            coalesced.increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            loads.increment();
+            CachedPrice loaded = load(productId);
+            // A ProductUpdatedEvent applied while we were loading is fresher than what we read; keep it.
+            CachedPrice current = cache.asMap().putIfAbsent(productId, loaded);
+            CachedPrice result = current != null ? current : loaded;
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(productId, mine);
+        }
+    }
+
+    private CachedPrice load(String productId) {
+        Optional<ProductPriceCache> local = productPriceCacheRepository.findById(productId);
+        if (local.isPresent() && local.get().getPrice() != null) {
+            return new CachedPrice(local.get().getPrice());
+        }
+
+        ProductResponse remote;
+        try {
+            remote = productServiceClient.getProductById(productId);
+        } catch (WebClientResponseException.NotFound e) {
+            remote = null;
+        }
+        if (remote == null || remote.getPrice() == null) {
+            log.info("Product {} not found in ProductService; caching the miss", productId);
+            return CachedPrice.MISSING;
+        }
+
+        try {
+            productPriceCacheRepository.insertIfAbsent(productId, remote.getName(), remote.getPrice());
+        } catch (Exception e) {
+            log.warn("Failed to write back price for product {}: {}", productId, e.getMessage());
+        }
+        return new CachedPrice(remote.getPrice());
+    }
+
+    private record CachedPrice(BigDecimal price) {
+        private static final CachedPrice MISSING = new CachedPrice(null);
+
+        boolean isMissing() {
+            return price == null;
+        }
+    }
+
+    private record PriceExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<String, CachedPrice> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedPrice value, long currentTime) {
+            return value.isMissing() ? negativeTtlNanos : ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedPrice value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedPrice value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.orderService.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Picks the DataSource for read-only transactions when {@code datasource.replicas.urls} lists one or more
+ * PostgreSQL streaming replicas (see {@code ReadReplicaConfig}). Replicas are used round-robin as long as
+ * their replay lag, checked every {@code datasource.replicas.lag-check-interval-ms}, stays within
+ * {@code datasource.replicas.max-lag-ms}; when none qualifies the read falls back to the primary.
+ * Reads are counted in {@code datasource.replica.reads} per replica and fallbacks in
+ * {@code datasource.replica.fallbacks} per reason ({@code no-replica-within-lag}, {@code read-your-writes},
+ * or {@code forced-primary} for {@link #onPrimary} reads); each replica's lag is published as
+ * {@code datasource.replica.lag}.
+ * <p>
+ * Read-your-writes ({@code datasource.replicas.read-your-writes.enabled}, off by default) sends reads of a
+ * key written within {@code datasource.replicas.read-your-writes.window-ms} to the primary, so a client
+ * polling an order right after creating or updating it never sees the replica's older view.
+ */
+@Component
+public class ReadReplicaRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadReplicaRouter.class);
+
+    private static final String LAG_QUERY = "SELECT CASE "
+            + "WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    /** Set while a read is pinned to the primary; holds the fallback counter that pin is charged to. */
+    private static final ThreadLocal<Counter> FORCE_PRIMARY = new ThreadLocal<>();
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final long maxLagMillis;
+    private final boolean readYourWrites;
+    private final Cache<String, Boolean> recentWrites;
+    private final Counter laggingFallbacks;
+    private final Counter readYourWritesFallbacks;
+    private final Counter forcedPrimaryFallbacks;
+
+    public ReadReplicaRouter(MeterRegistry meterRegistry,
+                             @Value("${datasource.replicas.urls:}") String urls,
+                             @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+                             @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+                             @Value("${datasource.replicas.pool-size:10}") int poolSize,
+                             @Value("${datasource.replicas.max-lag-ms:1000}") long maxLagMillis,
+                             @Value("${datasource.replicas.read-your-writes.enabled:false}") boolean readYourWrites,
+                             @Value("${datasource.replicas.read-your-writes.window-ms:5000}") long readYourWritesWindowMillis) {
+        this.maxLagMillis = maxLagMillis;
+        this.readYourWrites = readYourWrites;
+        this.recentWrites = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(Duration.ofMillis(readYourWritesWindowMillis))
+                .build();
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                replicas.add(new Replica("replica-" + replicas.size(), url.trim(), username, password, poolSize,
+                        meterRegistry));
+            }
+        }
+        this.laggingFallbacks = fallbackCounter(meterRegistry, "no-replica-within-lag");
+        this.readYourWritesFallbacks = fallbackCounter(meterRegistry, "read-your-writes");
+        this.forcedPrimaryFallbacks = fallbackCounter(meterRegistry, "forced-primary");
+    }
+
+    private static Counter fallbackCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("datasource.replica.fallbacks")
+                .description("Read-only transactions served by the primary although replicas are configured")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * The DataSource the next read-only connection should come from.
+     */
+    public DataSource route(DataSource primary) {
+        Counter forced = FORCE_PRIMARY.get();
+        if (forced != null) {
+            forced.increment();
+            return primary;
+        }
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                replica.reads.increment();
+                return replica.dataSource;
+            }
+        }
+        laggingFallbacks.increment();
+        return primary;
+    }
+
+    /**
+     * Marks {@code key} as just written; a no-op unless read-your-writes is enabled.
+     */
+    public void recordWrite(String key) {
+        if (readYourWrites && hasReplicas()) {
+            recentWrites.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Runs {@code read} against the primary if {@code key} was written within the read-your-writes
+     * window, otherwise with normal routing. The read must open its connection inside {@code read}.
+     */
+    public <T> T readYourWrites(String key, Supplier<T> read) {
+        if (!readYourWrites || FORCE_PRIMARY.get() != null || recentWrites.getIfPresent(key) == null) {
+            return read.get();
+        }
+        return onPrimary(read, readYourWritesFallbacks);
+    }
+
+    /**
+     * Runs {@code read} against the primary, for reads that must not see replica lag. The read must open
+     * its connection inside {@code read}.
+     */
+    public <T> T onPrimary(Supplier<T> read) {
+        return onPrimary(read, forcedPrimaryFallbacks);
+    }
+
+    private <T> T onPrimary(Supplier<T> read, Counter fallbacks) {
+        if (FORCE_PRIMARY.get() != null) {
+            return read.get();
+        }
+        FORCE_PRIMARY.set(fallbacks);
+        try {
+            return read.get();
+        } finally {
+            FORCE_PRIMARY.remove();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.lag-check-interval-ms:1000}")
+    public void checkReplicaLag() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try {
+                Double lag = replica.jdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+                replica.lagMillis = lag == null ? 0 : lag;
+                healthy = replica.lagMillis <= maxLagMillis;
+                if (!healthy && replica.healthy) {
+                    log.warn("Replica {} is {} ms behind the primary; routing its reads elsewhere",
+                            replica.name, Math.round(replica.lagMillis));
+                }
+            } catch (Exception e) {
+                healthy = false;
+                if (replica.healthy) {
+                    log.warn("Replica {} failed its lag check; routing its reads elsewhere: {}",
+                            replica.name, e.getMessage());
+                }
+            }
+            if (healthy && !replica.healthy) {
+                log.info("Replica {} is within {} ms of the primary; routing reads to it", replica.name, maxLagMillis);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @PreDestroy
+    public void closeReplicas() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        private final Counter reads;
+        private volatile boolean healthy;
+        private volatile double lagMillis = -1;
+
+        Replica(String name, String url, String username, String password, int poolSize, MeterRegistry meterRegistry) {
+            HikariConfig config = new HikariConfig();
+            config.setPoolName(name);
+            config.setJdbcUrl(url);
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setMaximumPoolSize(poolSize);
+            config.setReadOnly(true);
+            // Do not fail startup when a replica is down; the lag check keeps it out of rotation.
+            config.setInitializationFailTimeout(-1);
+            this.name = name;
+            this.dataSource = new HikariDataSource(config);
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+            this.jdbcTemplate.setQueryTimeout(2);
+            this.reads = Counter.builder("datasource.replica.reads")
+                    .description("Read-only transactions served by a replica")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+            Gauge.builder("datasource.replica.lag", this, replica -> replica.lagMillis)
+                    .description("Replay lag of the replica in milliseconds as of the last check, -1 if unknown")
+                    .baseUnit("milliseconds")
+                    .tag("replica", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+-- Range-partition outbox_events (by created_at) and processed_events (by processed_at) into daily
+-- partitions so retention can drop whole partitions instead of running large DELETEs.
+-- Partitions are named <table>_pYYYYMMDD; PartitionMaintenanceScheduler creates future ones and drops
+-- expired ones. Rows outside every daily partition land in the <table>_default partition.
+
+-- outbox_events -------------------------------------------------------------------------------------
+
+ALTER TABLE outbox_events RENAME TO outbox_events_legacy;
+ALTER SEQUENCE outbox_events_id_seq OWNED BY NONE;
+
+DROP INDEX IF EXISTS idx_outbox_events_status;
+DROP INDEX IF EXISTS idx_outbox_events_order_id;
+DROP INDEX IF EXISTS idx_outbox_events_status_created_at;
+DROP INDEX IF EXISTS idx_outbox_events_unsettled_order;
+DROP INDEX IF EXISTS idx_outbox_events_status_next_attempt;
+
+CREATE TABLE outbox_events (
+    id               BIGINT          NOT NULL DEFAULT nextval('outbox_events_id_seq'),
+    event_type       VARCHAR(50)     NOT NULL,
+    exchange         VARCHAR(255)    NOT NULL,
+    routing_key      VARCHAR(255)    NOT NULL,
+    status           VARCHAR(50)     NOT NULL,
+    payload          TEXT            NOT NULL,
+    order_id         BIGINT          NOT NULL,
+    retry_count      INTEGER         NOT NULL DEFAULT 0,
+    created_at       TIMESTAMP       NOT NULL,
+    next_attempt_at  TIMESTAMP       NOT NULL,
+    processed_at     TIMESTAMP,
+    error_message    TEXT,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE outbox_events_id_seq OWNED BY outbox_events.id;
+
+CREATE TABLE outbox_events_default PARTITION OF outbox_events DEFAULT;
+
+CREATE INDEX idx_outbox_events_status_created_at   ON outbox_events (status, created_at);
+CREATE INDEX idx_outbox_events_status_next_attempt ON outbox_events (status, next_attempt_at);
+CREATE INDEX idx_outbox_events_order_id            ON outbox_events (order_id);
+CREATE INDEX idx_outbox_events_unsettled_order
+    ON outbox_events (order_id, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
+
+-- processed_events ----------------------------------------------------------------------------------
+
+ALTER TABLE processed_events RENAME TO processed_events_legacy;
+
+-- event_id is unique per partition; the listeners' existsById check spans all partitions.
+CREATE TABLE processed_events (
+    event_id      VARCHAR(255)    NOT NULL,
+    processed_at  TIMESTAMP       NOT NULL,
+    PRIMARY KEY (event_id, processed_at)
+) PARTITION BY RANGE (processed_at);
+
+CREATE TABLE processed_events_default PARTITION OF processed_events DEFAULT;
+
+-- Daily partitions for the last week and the next one; older rows go to the default partition.
+
+DO $$
+DECLARE
+    day DATE;
+BEGIN
+    FOR day IN SELECT generate_series(current_date - 7, current_date + 7, INTERVAL '1 day')::date LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF outbox_events FOR VALUES FROM (%L) TO (%L)',
+                       'outbox_events_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF processed_events FOR VALUES FROM (%L) TO (%L)',
+                       'processed_events_p' || to_char(day, 'YYYYMMDD'), day, day + 1);
+    END LOOP;
+END $$;
+
+INSERT INTO outbox_events (id, event_type, exchange, routing_key, status, payload, order_id, retry_count,
+                           created_at, next_attempt_at, processed_at, error_message)
+SELECT id, event_type, exchange, routing_key, status, payload, order_id, retry_count,
+       created_at, next_attempt_at, processed_at, error_message
+FROM outbox_events_legacy;
+
+INSERT INTO processed_events (event_id, processed_at)
+SELECT event_id, processed_at FROM processed_events_legacy;
+
+DROP TABLE outbox_events_legacy;
+DROP TABLE processed_events_legacy;
@@ -0,0 +1,12 @@
+-- OrderEntity and OutboxEvent now draw ids from pooled sequences (allocationSize = 50) so Hibernate
+-- can batch their inserts. Column defaults are dropped: a plain nextval() would hand out ids inside a
+-- block Hibernate has already reserved.
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER TABLE orders ALTER COLUMN id DROP DEFAULT;
+
+ALTER SEQUENCE outbox_events_id_seq INCREMENT BY 50;
+ALTER TABLE outbox_events ALTER COLUMN id DROP DEFAULT;
+
+ALTER TABLE orders ADD COLUMN IF NOT EXISTS checkout_id VARCHAR(36);
+
+CREATE INDEX IF NOT EXISTS idx_orders_checkout_id ON orders (checkout_id);
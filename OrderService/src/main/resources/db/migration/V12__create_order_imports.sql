@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS order_imports (
+    id              VARCHAR(36)     PRIMARY KEY,
+    username        VARCHAR(255)    NOT NULL,
+    status          VARCHAR(20)     NOT NULL,
+    format          VARCHAR(10),
+    lines_read      BIGINT          NOT NULL DEFAULT 0,
+    orders_created  BIGINT          NOT NULL DEFAULT 0,
+    lines_rejected  BIGINT          NOT NULL DEFAULT 0,
+    errors          TEXT,
+    created_at      TIMESTAMP       NOT NULL,
+    updated_at      TIMESTAMP       NOT NULL,
+    finished_at     TIMESTAMP
+);
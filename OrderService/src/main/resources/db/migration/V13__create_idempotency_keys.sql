@@ -0,0 +1,11 @@
+-- Idempotency-Key records for POST /api/orders. The key is scoped per user; the row is written in the
+-- same transaction as the order it produced, so a key can never point at an order that was rolled back.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    scoped_key    VARCHAR(320)    PRIMARY KEY,
+    request_hash  VARCHAR(64)     NOT NULL,
+    order_id      BIGINT          NOT NULL,
+    created_at    TIMESTAMP       NOT NULL,
+    expires_at    TIMESTAMP       NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys (expires_at);
@@ -0,0 +1,13 @@
+-- Composite indexes for keyset pagination of order listings on (created_at, id), newest first.
+-- Each filtered listing gets its filter column in front; the single-column indexes they replace
+-- are dropped since the composite ones serve the same equality lookups.
+CREATE INDEX IF NOT EXISTS idx_orders_created_at_id               ON orders (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_status_created_at_id        ON orders (status, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_customer_name_created_at_id ON orders (customer_name, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_product_id_created_at_id    ON orders (product_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_orders_username_created_at_id      ON orders (username, created_at, id);
+
+DROP INDEX IF EXISTS idx_orders_status;
+DROP INDEX IF EXISTS idx_orders_customer_name;
+DROP INDEX IF EXISTS idx_orders_product_id;
+DROP INDEX IF EXISTS idx_orders_username;
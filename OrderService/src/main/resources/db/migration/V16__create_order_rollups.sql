@@ -0,0 +1,11 @@
+-- Per-minute and per-hour order activity: how many orders entered each status and their summed amount,
+-- by currency. Filled additively by every OrderService instance from in-memory buckets.
+CREATE TABLE IF NOT EXISTS order_rollups (
+    granularity   VARCHAR(10)     NOT NULL,
+    bucket_start  TIMESTAMP       NOT NULL,
+    status        VARCHAR(50)     NOT NULL,
+    currency      VARCHAR(10)     NOT NULL,
+    order_count   BIGINT          NOT NULL,
+    amount_sum    NUMERIC(19, 4)  NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, status, currency)
+);
@@ -0,0 +1,5 @@
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS claimed_by  VARCHAR(255);
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS lease_until TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_status_lease_until
+    ON outbox_events (status, lease_until);
@@ -0,0 +1,18 @@
+-- V10 range-partitioned processed_events by processed_at, which forced the primary key to
+-- (event_id, processed_at): the same event id could be recorded again under a later timestamp, so
+-- the table no longer deduplicated redeliveries. It only holds a week of event ids, so it goes back to
+-- a plain table keyed by event_id; PartitionMaintenanceScheduler's retention deletes expired rows.
+
+ALTER TABLE processed_events RENAME TO processed_events_partitioned;
+
+CREATE TABLE processed_events (
+    event_id      VARCHAR(255)    PRIMARY KEY,
+    processed_at  TIMESTAMP       NOT NULL
+);
+
+CREATE INDEX idx_processed_events_processed_at ON processed_events (processed_at);
+
+INSERT INTO processed_events (event_id, processed_at)
+SELECT event_id, min(processed_at) FROM processed_events_partitioned GROUP BY event_id;
+
+DROP TABLE processed_events_partitioned;
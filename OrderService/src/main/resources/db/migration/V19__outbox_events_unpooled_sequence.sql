@@ -0,0 +1,9 @@
+-- The partitioned relay publishes an order's events in id order, which only holds if ids are handed out
+-- in creation order. A pooled sequence (V11) gives every instance its own block of 50, so an event
+-- written later on one instance can get a lower id than an earlier one written on another. Outbox ids go
+-- back to one nextval() per row; orders keep their pooled sequence.
+--
+-- Pooled blocks end at the sequence's current value, so continuing from there never reuses an id an
+-- instance still holds.
+ALTER SEQUENCE outbox_events_id_seq INCREMENT BY 1;
+ALTER TABLE outbox_events ALTER COLUMN id SET DEFAULT nextval('outbox_events_id_seq');
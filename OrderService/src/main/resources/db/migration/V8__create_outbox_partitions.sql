@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS outbox_relay_nodes (
+    node_id       VARCHAR(255)    PRIMARY KEY,
+    heartbeat_at  TIMESTAMP       NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS outbox_partitions (
+    partition_id  INTEGER         PRIMARY KEY,
+    owner         VARCHAR(255),
+    lease_until   TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_unsettled_order
+    ON outbox_events (order_id, id)
+    WHERE status IN ('PENDING', 'PROCESSING');
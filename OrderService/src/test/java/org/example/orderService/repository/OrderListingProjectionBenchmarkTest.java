@@ -0,0 +1,162 @@
+package org.example.orderService.repository;
+
+import jakarta.persistence.EntityManager;
+import org.example.orderService.OrderServiceApplication;
+import org.example.orderService.dto.OrderResponse;
+import org.example.orderService.mapper.OrderMapper;
+import org.example.orderService.model.OrderEntity;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackage;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.boot.jdbc.test.autoconfigure.AutoConfigureTestDatabase;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the listing path introduced with {@link OrderRepository#ORDER_RESPONSE_PROJECTION} against
+ * loading the same keyset page as entities and mapping them with {@link OrderMapper#toResponse}, on a real
+ * PostgreSQL with the Flyway schema. Both paths run in a read-only transaction, as {@code getAllOrders}
+ * does. Reports latency percentiles and allocated bytes per page; only the allocation difference is
+ * asserted, since wall-clock numbers depend on the machine. Skipped when Docker is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+class OrderListingProjectionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderListingProjectionBenchmarkTest.class);
+
+    private static final int ORDERS = 5_000;
+    private static final int PAGE_SIZE = 200;
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int MEASURED_ITERATIONS = 500;
+
+    private static final String ENTITY_PAGE = "SELECT o FROM OrderEntity o WHERE (o.createdAt, o.id) < (:createdAt, :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC";
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:16-alpine");
+
+    /** Keeps the slice off the application class and its scheduling/ShedLock setup. */
+    @SpringBootConfiguration
+    @AutoConfigurationPackage(basePackageClasses = OrderServiceApplication.class)
+    static class Config {
+    }
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final OrderMapper orderMapper = new OrderMapper();
+
+    @Test
+    void projectionAllocatesLessThanEntityMapping() {
+        seedOrders();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        LocalDateTime before = LocalDateTime.now().plusDays(1);
+
+        Supplier<List<OrderResponse>> projection = () -> readOnly.execute(status ->
+                orderRepository.findPageBefore(before, Long.MAX_VALUE, PageRequest.of(0, PAGE_SIZE)));
+        Supplier<List<OrderResponse>> entityMapping = () -> readOnly.execute(status ->
+                entityManager.createQuery(ENTITY_PAGE, OrderEntity.class)
+                        .setParameter("createdAt", before)
+                        .setParameter("id", Long.MAX_VALUE)
+                        .setMaxResults(PAGE_SIZE)
+                        .getResultList()
+                        .stream()
+                        .map(orderMapper::toResponse)
+                        .toList());
+
+        assertThat(ids(projection.get())).hasSize(PAGE_SIZE).isEqualTo(ids(entityMapping.get()));
+
+        warmUp(projection);
+        warmUp(entityMapping);
+        Result projected = measure(projection);
+        Result mapped = measure(entityMapping);
+
+        log.info("Order listing, {} rows per page, {} pages: projection {}; entities + OrderMapper {}",
+                PAGE_SIZE, MEASURED_ITERATIONS, projected, mapped);
+        assertThat(projected.bytesPerPage()).isLessThan(mapped.bytesPerPage());
+    }
+
+    private void seedOrders() {
+        LocalDateTime base = LocalDateTime.now().minusDays(30);
+        jdbcTemplate.batchUpdate("INSERT INTO orders (id, customer_name, product_id, quantity, total_price, status, "
+                        + "payment_method, amount, currency, username, created_at, updated_at) "
+                        + "VALUES (nextval('orders_id_seq'), ?, ?, ?, ?, 'PAID', 'CARD', ?, 'USD', ?, ?, ?)",
+                IntStream.range(0, ORDERS).mapToObj(i -> {
+                    Timestamp createdAt = Timestamp.valueOf(base.plusSeconds(i));
+                    BigDecimal price = BigDecimal.valueOf(1_000 + i, 2);
+                    return new Object[] {"customer-" + (i % 100), "product-" + (i % 50), 1 + i % 5, price, price,
+                            "user-" + (i % 100), createdAt, createdAt};
+                }).toList());
+    }
+
+    private static List<Long> ids(List<OrderResponse> page) {
+        return page.stream().map(OrderResponse::getId).toList();
+    }
+
+    private static void warmUp(Supplier<List<OrderResponse>> path) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            path.get();
+        }
+    }
+
+    private static Result measure(Supplier<List<OrderResponse>> path) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long[] nanos = new long[MEASURED_ITERATIONS];
+        long allocated = 0;
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            path.get();
+            nanos[i] = System.nanoTime() - start;
+            allocated += threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        }
+        Arrays.sort(nanos);
+        return new Result(nanos[nanos.length / 2], nanos[nanos.length * 99 / 100], allocated / MEASURED_ITERATIONS);
+    }
+
+    private record Result(long p50Nanos, long p99Nanos, long bytesPerPage) {
+
+        @Override
+        public String toString() {
+            return String.format("p50 %.3f ms, p99 %.3f ms, %d bytes/page",
+                    p50Nanos / 1e6, p99Nanos / 1e6, bytesPerPage);
+        }
+    }
+}
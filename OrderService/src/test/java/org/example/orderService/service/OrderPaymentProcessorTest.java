@@ -0,0 +1,84 @@
+package org.example.orderService.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.common.event.PaymentRefundRequestEvent;
+import org.example.common.event.PaymentResultEvent;
+import org.example.common.model.OrderStatus;
+import org.example.orderService.client.PaymentServiceClient;
+import org.example.orderService.model.OutboxEvent;
+import org.example.orderService.repository.OrderRepository;
+import org.example.orderService.repository.OutboxEventRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderPaymentProcessorTest {
+
+    private static final Long ORDER_ID = 42L;
+    private static final String TRANSACTION_ID = "tx-42";
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderStateMachine orderStateMachine = mock(OrderStateMachine.class);
+    private final OutboxEventRepository outboxEventRepository = mock(OutboxEventRepository.class);
+    private final OutboxEventProcessor outboxEventProcessor = mock(OutboxEventProcessor.class);
+
+    private OrderPaymentProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new OrderPaymentProcessor(orderRepository, mock(PaymentServiceClient.class),
+                mock(RabbitTemplate.class), orderStateMachine, outboxEventRepository, outboxEventProcessor);
+        // The saga deadline cancelled the order before the payment result arrived.
+        when(orderStateMachine.transition(eq(ORDER_ID), any(), any(), any())).thenReturn(Optional.empty());
+        when(orderRepository.findStatusById(ORDER_ID)).thenReturn(Optional.of(OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void paymentSucceedingAfterDeadlineCancelIsRefunded() throws Exception {
+        when(orderRepository.recordPaymentAfterCancel(ORDER_ID, TRANSACTION_ID)).thenReturn(1);
+
+        assertThat(processor.handlePaymentResult(
+                new PaymentResultEvent(ORDER_ID.toString(), "SUCCESS", TRANSACTION_ID, null))).isNull();
+
+        ArgumentCaptor<OutboxEvent> saved = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(outboxEventRepository).save(saved.capture());
+        OutboxEvent refund = saved.getValue();
+        assertThat(refund.getOrderId()).isEqualTo(ORDER_ID);
+        assertThat(refund.getRoutingKey()).isEqualTo("payment.refund.request");
+        assertThat(refund.getStatus()).isEqualTo(OutboxEvent.EventStatus.PENDING);
+        PaymentRefundRequestEvent payload = new ObjectMapper()
+                .readValue(refund.getPayload(), PaymentRefundRequestEvent.class);
+        assertThat(payload.getTransactionId()).isEqualTo(TRANSACTION_ID);
+        verify(outboxEventProcessor).dispatchAfterCommit(refund.getId());
+    }
+
+    @Test
+    void redeliveredPaymentAfterDeadlineCancelIsRefundedOnce() {
+        when(orderRepository.recordPaymentAfterCancel(ORDER_ID, TRANSACTION_ID)).thenReturn(0);
+
+        assertThat(processor.handlePaymentResult(
+                new PaymentResultEvent(ORDER_ID.toString(), "SUCCESS", TRANSACTION_ID, null))).isNull();
+
+        verify(outboxEventRepository, never()).save(any());
+    }
+
+    @Test
+    void failedPaymentAfterDeadlineCancelIsDropped() {
+        assertThat(processor.handlePaymentResult(
+                new PaymentResultEvent(ORDER_ID.toString(), "FAILED", TRANSACTION_ID, "declined"))).isNull();
+
+        verify(orderRepository, never()).recordPaymentAfterCancel(any(), any());
+        verify(outboxEventRepository, never()).save(any());
+    }
+}
@@ -35,9 +35,15 @@ public class OutboxEvent {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
     private LocalDateTime processedAt;
     private String errorMessage;
 
+    private String claimedBy;
+    private LocalDateTime leaseUntil;
+
     public OutboxEvent() {
     }
 
@@ -47,6 +53,7 @@ public class OutboxEvent {
         this.payload = payload;
         this.status = EventStatus.PENDING;
         this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
     }
 
     public boolean canRetry() {
@@ -109,6 +116,14 @@ public class OutboxEvent {
         this.createdAt = createdAt;
     }
 
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
     public LocalDateTime getProcessedAt() {
         return processedAt;
     }
@@ -124,4 +139,20 @@ public class OutboxEvent {
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public void setLeaseUntil(LocalDateTime leaseUntil) {
+        this.leaseUntil = leaseUntil;
+    }
 }
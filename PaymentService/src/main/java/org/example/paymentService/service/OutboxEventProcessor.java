@@ -1,5 +1,9 @@
 package org.example.paymentService.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.common.outbox.OutboxRetryBackoff;
+import org.example.common.outbox.RoutingKeyCircuitBreaker;
 import org.example.paymentService.model.OutboxEvent;
 import org.example.paymentService.repository.OutboxEventRepository;
 import org.slf4j.Logger;
@@ -7,65 +11,223 @@ import org.slf4j.LoggerFactory;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Relays outbox rows to RabbitMQ. Every replica runs this poller; rows are leased to one instance at a
+ * time ({@code claimed_by} + {@code lease_until}), and only the lease holder may settle a row. A lease
+ * left behind by a crashed instance expires and the row is reclaimed by the next poll on any replica.
+ */
 @Component
 public class OutboxEventProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(OutboxEventProcessor.class);
 
+    private static final int BATCH_SIZE = 100;
+
     private final OutboxEventRepository outboxEventRepository;
     private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+    private final Queue<Long> committedEventIds = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean commitDrainScheduled = new AtomicBoolean();
+    private final String instanceId = resolveInstanceId();
+    private final int leaseSeconds;
+    private final OutboxRetryBackoff retryBackoff;
+    private final RoutingKeyCircuitBreaker circuitBreaker;
+    private final Timer pollDispatchLatency;
+    private final Timer commitDispatchLatency;
 
-    public OutboxEventProcessor(OutboxEventRepository outboxEventRepository, RabbitTemplate rabbitTemplate) {
+    public OutboxEventProcessor(OutboxEventRepository outboxEventRepository,
+                                RabbitTemplate rabbitTemplate,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${outbox.relay.lease-seconds:30}") int leaseSeconds,
+                                @Value("${outbox.retry.base-delay-ms:1000}") long retryBaseDelayMs,
+                                @Value("${outbox.retry.max-delay-ms:300000}") long retryMaxDelayMs,
+                                @Value("${outbox.circuit.failure-threshold:5}") int circuitFailureThreshold,
+                                @Value("${outbox.circuit.open-ms:30000}") long circuitOpenMs) {
         this.outboxEventRepository = outboxEventRepository;
         this.rabbitTemplate = rabbitTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leaseSeconds = leaseSeconds;
+        this.retryBackoff = new OutboxRetryBackoff(
+                Duration.ofMillis(retryBaseDelayMs), Duration.ofMillis(retryMaxDelayMs));
+        this.circuitBreaker = new RoutingKeyCircuitBreaker(
+                circuitFailureThreshold, Duration.ofMillis(circuitOpenMs));
+        this.pollDispatchLatency = dispatchLatencyTimer(meterRegistry, "poll");
+        this.commitDispatchLatency = dispatchLatencyTimer(meterRegistry, "commit");
+    }
+
+    private static Timer dispatchLatencyTimer(MeterRegistry meterRegistry, String trigger) {
+        return Timer.builder("outbox.dispatch.latency")
+                .description("Time from outbox row creation (commit) to broker publish")
+                .tag("trigger", trigger)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wakes the relay for {@code outboxEventId} once the surrounding transaction commits. Without an
+     * active transaction the row is already committed and is dispatched right away.
+     */
+    public void dispatchAfterCommit(Long outboxEventId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueueCommitted(outboxEventId);
+                }
+            });
+        } else {
+            enqueueCommitted(outboxEventId);
+        }
+    }
+
+    private void enqueueCommitted(Long outboxEventId) {
+        committedEventIds.add(outboxEventId);
+        if (commitDrainScheduled.compareAndSet(false, true)) {
+            singleThreadExecutor.execute(this::drainCommitted);
+        }
+    }
+
+    private void drainCommitted() {
+        commitDrainScheduled.set(false);
+        List<Long> ids = new ArrayList<>();
+        Long id;
+        while ((id = committedEventIds.poll()) != null) {
+            ids.add(id);
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            List<OutboxEvent> claimed = transactionTemplate.execute(status -> loadClaimed(
+                    outboxEventRepository.claimPendingByIds(ids, instanceId, leaseSeconds)));
+            if (claimed != null) {
+                claimed.forEach(event -> relay(event, commitDispatchLatency));
+            }
+        } catch (Exception e) {
+            log.warn("Commit-triggered dispatch of outbox events {} failed; the poller will pick them up: {}",
+                    ids, e.getMessage());
+        }
     }
 
     @Scheduled(fixedDelay = 5000)
     public void processOutboxEvents() {
-        List<OutboxEvent> pendingEvents = outboxEventRepository
-                .findByStatusOrderByCreatedAtAsc(OutboxEvent.EventStatus.PENDING, PageRequest.of(0, 100));
-
-        if (pendingEvents.isEmpty()) {
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> loadClaimed(
+                outboxEventRepository.claimBatch(instanceId, leaseSeconds, LocalDateTime.now(),
+                        circuitBreaker.openRoutingKeysOrPlaceholder(), BATCH_SIZE)));
+        if (claimed == null || claimed.isEmpty()) {
             return;
         }
+        claimed.forEach(event -> relay(event, pollDispatchLatency));
+    }
 
-        for (OutboxEvent event : pendingEvents) {
-            processSingleEvent(event);
+    /**
+     * Loads the claimed rows and keeps those the circuit breaker lets through: every row of a closed
+     * routing key, and a single probe row of a key whose open period has elapsed. The other rows go back
+     * to PENDING right away instead of waiting for their lease to expire.
+     */
+    private List<OutboxEvent> loadClaimed(Collection<Long> claimedIds) {
+        if (claimedIds.isEmpty()) {
+            return List.of();
+        }
+        List<OutboxEvent> admitted = new ArrayList<>(claimedIds.size());
+        List<Long> refused = new ArrayList<>();
+        outboxEventRepository.findAllById(claimedIds).stream()
+                .sorted(Comparator.comparing(OutboxEvent::getNextAttemptAt).thenComparing(OutboxEvent::getId))
+                .forEach(event -> {
+                    if (circuitBreaker.tryAcquire(event.getRoutingKey())) {
+                        admitted.add(event);
+                    } else {
+                        refused.add(event.getId());
+                    }
+                });
+        if (!refused.isEmpty()) {
+            outboxEventRepository.releaseIfOwned(OutboxEvent.EventStatus.PENDING, refused, instanceId);
         }
+        return admitted;
     }
 
-    @Transactional
-    public void processSingleEvent(OutboxEvent event) {
+    private void relay(OutboxEvent event, Timer dispatchLatency) {
         try {
             MessageProperties props = new MessageProperties();
             props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
             Message message = new Message(event.getPayload().getBytes(StandardCharsets.UTF_8), props);
 
             rabbitTemplate.send(event.getExchange(), event.getRoutingKey(), message);
+        } catch (Exception e) {
+            circuitBreaker.recordFailure(event.getRoutingKey());
+            recordFailure(event, e);
+            return;
+        }
+        circuitBreaker.recordSuccess(event.getRoutingKey());
+
+        LocalDateTime processedAt = LocalDateTime.now();
+        Integer settled = transactionTemplate.execute(status -> outboxEventRepository.markCompletedIfOwned(
+                OutboxEvent.EventStatus.COMPLETED, processedAt, event.getId(), instanceId));
+        if (settled == null || settled == 0) {
+            log.warn("Outbox event {} was published after its lease expired; another instance may publish it again.",
+                    event.getId());
+            return;
+        }
+        if (event.getCreatedAt() != null) {
+            dispatchLatency.record(Duration.between(event.getCreatedAt(), processedAt));
+        }
+        log.info("Outbox event {} published successfully.", event.getId());
+    }
+
+    private void recordFailure(OutboxEvent event, Exception e) {
+        int retryCount = event.getRetryCount() + 1;
+        event.setRetryCount(retryCount);
+        OutboxEvent.EventStatus next = event.canRetry()
+                ? OutboxEvent.EventStatus.PENDING
+                : OutboxEvent.EventStatus.FAILED;
+        LocalDateTime nextAttemptAt = retryBackoff.nextAttemptAt(retryCount);
 
-            event.setStatus(OutboxEvent.EventStatus.COMPLETED);
-            event.setProcessedAt(LocalDateTime.now());
-            log.info("Outbox event {} published successfully.", event.getId());
+        Integer settled = transactionTemplate.execute(status -> outboxEventRepository.recordFailedAttemptIfOwned(
+                next, retryCount, e.getMessage(), nextAttemptAt, event.getId(), instanceId));
+
+        if (settled == null || settled == 0) {
+            log.warn("Outbox event {} failed after its lease expired; leaving it to the current holder: {}",
+                    event.getId(), e.getMessage());
+        } else if (next == OutboxEvent.EventStatus.PENDING) {
+            log.warn("Outbox event {} failed (attempt {}/5), next attempt at {}: {}",
+                    event.getId(), retryCount, nextAttemptAt, e.getMessage());
+        } else {
+            log.error("Outbox event {} PERMANENTLY FAILED.", event.getId(), e);
+        }
+    }
+
+    private static String resolveInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
         } catch (Exception e) {
-            event.setRetryCount(event.getRetryCount() + 1);
-            event.setErrorMessage(e.getMessage());
-
-            if (event.canRetry()) {
-                log.warn("Outbox event {} failed (attempt {}/5): {}", event.getId(), event.getRetryCount(), e.getMessage());
-            } else {
-                event.setStatus(OutboxEvent.EventStatus.FAILED);
-                log.error("Outbox event {} PERMANENTLY FAILED.", event.getId(), e);
-            }
+            host = "unknown";
         }
-        outboxEventRepository.save(event);
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
     }
 }
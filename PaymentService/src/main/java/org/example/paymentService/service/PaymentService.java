@@ -22,13 +22,15 @@ public class PaymentService {
 
     private final ProcessedEventRepository processedEventRepository;
     private final org.example.paymentService.repository.OutboxEventRepository outboxEventRepository;
+    private final OutboxEventProcessor outboxEventProcessor;
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
 
-    public PaymentService(PaymentRepository paymentRepository, PaymentGatewayClient paymentGatewayClient, ProcessedEventRepository processedEventRepository, org.example.paymentService.repository.OutboxEventRepository outboxEventRepository) {
+    public PaymentService(PaymentRepository paymentRepository, PaymentGatewayClient paymentGatewayClient, ProcessedEventRepository processedEventRepository, org.example.paymentService.repository.OutboxEventRepository outboxEventRepository, OutboxEventProcessor outboxEventProcessor) {
         this.paymentRepository = paymentRepository;
         this.paymentGatewayClient = paymentGatewayClient;
         this.processedEventRepository = processedEventRepository;
         this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventProcessor = outboxEventProcessor;
     }
 
     public void processPaymentAsync(PaymentRequest paymentRequest) {
@@ -89,6 +91,7 @@ public class PaymentService {
                     org.example.paymentService.config.RabbitMQConfig.PAYMENT_RESULT_ROUTING_KEY,
                     payload);
             outboxEventRepository.save(outboxEvent);
+            outboxEventProcessor.dispatchAfterCommit(outboxEvent.getId());
         } catch (Exception e) {
             throw new RuntimeException("Failed to serialize PaymentResultEvent", e);
         }
@@ -8,11 +8,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.math.BigDecimal;
 
 @SpringBootApplication(scanBasePackages = { "org.example.productService", "org.example.common" })
 @EnableDiscoveryClient
+@EnableScheduling
 public class ProductServiceApplication {
 
     public static void main(String[] args) {
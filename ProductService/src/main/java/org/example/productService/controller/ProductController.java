@@ -1,6 +1,7 @@
 package org.example.productService.controller;
 
 import jakarta.validation.Valid;
+import org.example.productService.dto.CatalogPage;
 import org.example.productService.dto.ProductRequest;
 import org.example.productService.dto.ProductResponse;
 import org.example.productService.service.ProductService;
@@ -26,6 +27,12 @@ public class ProductController {
         return productService.getAllProducts();
     }
 
+    @GetMapping("/catalog")
+    public CatalogPage getCatalogPage(@RequestParam(required = false) String after,
+                                      @RequestParam(defaultValue = "1000") int limit) {
+        return productService.getCatalogPage(after, limit);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ProductResponse> getProductById(@PathVariable String id) {
         return productService.getProductById(id)
@@ -0,0 +1,14 @@
+package org.example.productService.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * One page of the catalog snapshot, ordered by product id. {@code nextCursor} is passed back as
+ * {@code after} to fetch the following page and is {@code null} on the last page.
+ */
+public record CatalogPage(List<Item> items, String nextCursor) {
+
+    public record Item(String id, String name, BigDecimal price) {
+    }
+}
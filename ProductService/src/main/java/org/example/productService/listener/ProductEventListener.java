@@ -10,6 +10,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class ProductEventListener {
 
@@ -26,14 +28,15 @@ public class ProductEventListener {
 
     @RabbitListener(queues = RabbitMQConfig.ORDER_CREATED_QUEUE)
     public void handleOrderCreatedEvent(OrderCreatedEvent event) {
-        log.info("Received OrderCreatedEvent (eventId: {}) for order ID: {}", event.getEventId(), event.getOrderId());
+        List<String> orderIds = productService.orderIdsOf(event);
+        log.info("Received OrderCreatedEvent (eventId: {}) for order ID(s): {}", event.getEventId(), orderIds);
 
         try {
             productService.processOrderCreated(event);
-            log.info("Successfully processed OrderCreatedEvent for order ID: {}", event.getOrderId());
+            log.info("Successfully processed OrderCreatedEvent for order ID(s): {}", orderIds);
         } catch (Exception e) {
-            log.error("Failed to reserve stock for order ID: {}", event.getOrderId(), e);
-            productService.publishStockReservationFailed(event.getOrderId(), e.getMessage());
+            log.error("Failed to reserve stock for order ID(s): {}", orderIds, e);
+            productService.publishStockReservationFailed(event, e.getMessage());
         }
     }
 
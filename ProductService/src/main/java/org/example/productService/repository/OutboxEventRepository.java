@@ -1,13 +1,73 @@
 package org.example.productService.repository;
 
 import org.example.productService.model.OutboxEvent;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
-    List<OutboxEvent> findByStatusOrderByCreatedAtAsc(OutboxEvent.EventStatus status, Pageable pageable);
+
+    /**
+     * Leases up to {@code limit} relayable rows to {@code owner}: PENDING rows whose backoff has elapsed,
+     * plus PROCESSING rows whose previous owner let the lease expire. Rows for routing keys with an open
+     * circuit are left alone. Rows locked by a concurrent claim are skipped, so replicas never receive
+     * the same row.
+     */
+    @Query(value = "UPDATE outbox_events SET status = 'PROCESSING', claimed_by = :owner, "
+            + "lease_until = now() + make_interval(secs => :leaseSeconds) "
+            + "WHERE id IN (SELECT id FROM outbox_events "
+            + "  WHERE ((status = 'PENDING' AND next_attempt_at <= :now) "
+            + "     OR (status = 'PROCESSING' AND (lease_until IS NULL OR lease_until < now()))) "
+            + "    AND routing_key NOT IN (:openRoutingKeys) "
+            + "  ORDER BY next_attempt_at, id LIMIT :limit FOR UPDATE SKIP LOCKED) "
+            + "RETURNING id", nativeQuery = true)
+    List<Long> claimBatch(@Param("owner") String owner,
+                          @Param("leaseSeconds") int leaseSeconds,
+                          @Param("now") LocalDateTime now,
+                          @Param("openRoutingKeys") Collection<String> openRoutingKeys,
+                          @Param("limit") int limit);
+
+    @Query(value = "UPDATE outbox_events SET status = 'PROCESSING', claimed_by = :owner, "
+            + "lease_until = now() + make_interval(secs => :leaseSeconds) "
+            + "WHERE id IN (:ids) AND status = 'PENDING' RETURNING id", nativeQuery = true)
+    List<Long> claimPendingByIds(@Param("ids") Collection<Long> ids,
+                                 @Param("owner") String owner,
+                                 @Param("leaseSeconds") int leaseSeconds);
+
+    /**
+     * Hands claimed rows back without an attempt, e.g. rows of a routing key whose circuit is open.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :pending, e.claimedBy = NULL, e.leaseUntil = NULL "
+            + "WHERE e.id IN :ids AND e.status = 'PROCESSING' AND e.claimedBy = :owner")
+    int releaseIfOwned(@Param("pending") OutboxEvent.EventStatus pending,
+                       @Param("ids") Collection<Long> ids,
+                       @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :completed, e.processedAt = :processedAt, "
+            + "e.claimedBy = NULL, e.leaseUntil = NULL "
+            + "WHERE e.id = :id AND e.status = 'PROCESSING' AND e.claimedBy = :owner")
+    int markCompletedIfOwned(@Param("completed") OutboxEvent.EventStatus completed,
+                             @Param("processedAt") LocalDateTime processedAt,
+                             @Param("id") Long id,
+                             @Param("owner") String owner);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :newStatus, e.retryCount = :retryCount, e.errorMessage = :error, "
+            + "e.nextAttemptAt = :nextAttemptAt, e.claimedBy = NULL, e.leaseUntil = NULL "
+            + "WHERE e.id = :id AND e.status = 'PROCESSING' AND e.claimedBy = :owner")
+    int recordFailedAttemptIfOwned(@Param("newStatus") OutboxEvent.EventStatus newStatus,
+                                   @Param("retryCount") int retryCount,
+                                   @Param("error") String error,
+                                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+                                   @Param("id") Long id,
+                                   @Param("owner") String owner);
 }
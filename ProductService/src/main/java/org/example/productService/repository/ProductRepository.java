@@ -1,6 +1,8 @@
 package org.example.productService.repository;
 
+import org.example.productService.dto.CatalogPage;
 import org.example.productService.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -19,6 +21,13 @@ public interface ProductRepository extends JpaRepository<Product, String> {
 
     List<Product> findByPriceGreaterThan(BigDecimal price);
 
+    /**
+     * Keyset page of the catalog after {@code afterId}, walking the primary key index.
+     */
+    @Query("SELECT new org.example.productService.dto.CatalogPage$Item(p.id, p.name, p.price) "
+            + "FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<CatalogPage.Item> findCatalogPage(@Param("afterId") String afterId, Pageable pageable);
+
     @Modifying
     @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity "
             + "WHERE p.id = :id AND p.stockQuantity >= :quantity")
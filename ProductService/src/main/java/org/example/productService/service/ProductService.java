@@ -6,6 +6,7 @@ import org.example.common.event.StockCompensationEvent;
 import org.example.common.exception.InvalidOperationException;
 import org.example.common.exception.ResourceNotFoundException;
 import org.example.productService.config.RabbitMQConfig;
+import org.example.productService.dto.CatalogPage;
 import org.example.productService.dto.ProductRequest;
 import org.example.productService.dto.ProductResponse;
 import org.example.productService.mapper.ProductMapper;
@@ -13,12 +14,15 @@ import org.example.productService.model.ProcessedEvent;
 import org.example.productService.model.Product;
 import org.example.productService.repository.ProcessedEventRepository;
 import org.example.productService.repository.ProductRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,13 +32,17 @@ public class ProductService {
     private final ProductMapper productMapper;
     private final ProcessedEventRepository processedEventRepository;
     private final org.example.productService.repository.OutboxEventRepository outboxEventRepository;
+    private final OutboxEventProcessor outboxEventProcessor;
+    public static final int MAX_CATALOG_PAGE_SIZE = 5000;
+
     private final com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
 
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper, ProcessedEventRepository processedEventRepository, org.example.productService.repository.OutboxEventRepository outboxEventRepository) {
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper, ProcessedEventRepository processedEventRepository, org.example.productService.repository.OutboxEventRepository outboxEventRepository, OutboxEventProcessor outboxEventProcessor) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
         this.processedEventRepository = processedEventRepository;
         this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventProcessor = outboxEventProcessor;
     }
 
     public List<ProductResponse> getAllProducts() {
@@ -48,6 +56,19 @@ public class ProductService {
                 .map(productMapper::toResponse);
     }
 
+    /**
+     * Id, name and price of the products after {@code afterId} (exclusive), in id order, for consumers
+     * that mirror the catalog (OrderService's price cache warm-up).
+     */
+    @Transactional(readOnly = true)
+    public CatalogPage getCatalogPage(String afterId, int limit) {
+        int pageSize = Math.clamp(limit, 1, MAX_CATALOG_PAGE_SIZE);
+        List<CatalogPage.Item> items = productRepository.findCatalogPage(
+                afterId == null ? "" : afterId, PageRequest.of(0, pageSize));
+        String nextCursor = items.size() < pageSize ? null : items.get(items.size() - 1).id();
+        return new CatalogPage(items, nextCursor);
+    }
+
     @Transactional
     public ProductResponse createProduct(ProductRequest request) {
         Product product = productMapper.toEntity(request);
@@ -135,20 +156,64 @@ public class ProductService {
             return;
         }
 
-        decrementStock(event.getProductId(), event.getQuantity());
+        if (event.getLines().isEmpty()) {
+            decrementStock(event.getProductId(), event.getQuantity());
+        } else {
+            reserveLines(event.getLines());
+        }
 
         if (event.getEventId() != null) {
             processedEventRepository.save(new ProcessedEvent(event.getEventId()));
         }
 
-        try {
-            org.example.common.event.StockReservedEvent reservedEvent = new org.example.common.event.StockReservedEvent(java.util.UUID.randomUUID().toString(), event.getOrderId());
-            String payload = objectMapper.writeValueAsString(reservedEvent);
-            org.example.productService.model.OutboxEvent outboxEvent = new org.example.productService.model.OutboxEvent(
-                    RabbitMQConfig.EXCHANGE_NAME, RabbitMQConfig.STOCK_RESERVED_ROUTING_KEY, payload);
-            outboxEventRepository.save(outboxEvent);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to serialize StockReservedEvent", e);
+        for (String orderId : orderIdsOf(event)) {
+            try {
+                org.example.common.event.StockReservedEvent reservedEvent = new org.example.common.event.StockReservedEvent(java.util.UUID.randomUUID().toString(), orderId);
+                String payload = objectMapper.writeValueAsString(reservedEvent);
+                org.example.productService.model.OutboxEvent outboxEvent = new org.example.productService.model.OutboxEvent(
+                        RabbitMQConfig.EXCHANGE_NAME, RabbitMQConfig.STOCK_RESERVED_ROUTING_KEY, payload);
+                outboxEventRepository.save(outboxEvent);
+                outboxEventProcessor.dispatchAfterCommit(outboxEvent.getId());
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to serialize StockReservedEvent", e);
+            }
+        }
+    }
+
+    /**
+     * Reserves every line of a checkout in one pass: quantities are summed per product and products are
+     * decremented in id order, so concurrent checkouts lock rows in the same order. Any shortfall throws
+     * and rolls the whole checkout back.
+     */
+    private void reserveLines(List<OrderCreatedEvent.Line> lines) {
+        Map<String, Integer> quantityByProduct = new TreeMap<>();
+        for (OrderCreatedEvent.Line line : lines) {
+            quantityByProduct.merge(line.getProductId(), line.getQuantity(), Integer::sum);
+        }
+        for (Map.Entry<String, Integer> entry : quantityByProduct.entrySet()) {
+            if (productRepository.atomicDecrementStock(entry.getKey(), entry.getValue()) == 0) {
+                Product product = productRepository.findById(entry.getKey())
+                        .orElseThrow(() -> new ResourceNotFoundException("Product", "id", entry.getKey()));
+                throw new InvalidOperationException(
+                        "Insufficient stock for product '" + product.getName() + "'. "
+                                + "Requested: " + entry.getValue()
+                                + ", available: "
+                                + (product.getStockQuantity() != null ? product.getStockQuantity() : 0));
+            }
+        }
+    }
+
+    public List<String> orderIdsOf(OrderCreatedEvent event) {
+        if (event.getLines().isEmpty()) {
+            return List.of(event.getOrderId());
+        }
+        return event.getLines().stream().map(OrderCreatedEvent.Line::getOrderId).toList();
+    }
+
+    @Transactional
+    public void publishStockReservationFailed(OrderCreatedEvent event, String errorMessage) {
+        for (String orderId : orderIdsOf(event)) {
+            publishStockReservationFailed(orderId, errorMessage);
         }
     }
 
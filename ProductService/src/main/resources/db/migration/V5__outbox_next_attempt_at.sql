@@ -0,0 +1,8 @@
+ALTER TABLE outbox_events ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+
+UPDATE outbox_events SET next_attempt_at = created_at WHERE next_attempt_at IS NULL;
+
+ALTER TABLE outbox_events ALTER COLUMN next_attempt_at SET NOT NULL;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_status_next_attempt
+    ON outbox_events (status, next_attempt_at);
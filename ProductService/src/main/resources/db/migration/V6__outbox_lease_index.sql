@@ -0,0 +1,6 @@
+-- Nothing filters outbox_events on created_at; the claim reads PENDING rows by next_attempt_at
+-- (idx_outbox_events_status_next_attempt) and PROCESSING rows by an expired lease_until.
+DROP INDEX IF EXISTS idx_outbox_events_status_created_at;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_events_status_lease_until
+    ON outbox_events (status, lease_until);
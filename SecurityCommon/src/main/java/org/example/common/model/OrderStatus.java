@@ -1,6 +1,8 @@
 package org.example.common.model;
 
+import java.util.Collections;
 import java.util.EnumSet;
+import java.util.Set;
 
 public enum OrderStatus {
     PENDING,
@@ -15,17 +17,51 @@ public enum OrderStatus {
     CANCELLED,
     FAILED;
 
+    // Transition table as bitmasks indexed by ordinal: bit n of SUCCESSORS[s] is set if s may move to
+    // the status with ordinal n, so checks never allocate.
+    private static final int[] SUCCESSORS = new int[values().length];
+    private static final int[] PREDECESSORS = new int[values().length];
+    private static final Set<OrderStatus>[] PREDECESSOR_SETS;
+
+    static {
+        allow(PENDING, STOCK_RESERVED, FAILED, PAYMENT_FAILED, PAYMENT_ERROR, CANCELLED);
+        allow(STOCK_RESERVED, PAID, PAYMENT_FAILED, PAYMENT_ERROR, CANCELLED);
+        allow(PAYMENT_FAILED, PAID, PAYMENT_FAILED, PAYMENT_ERROR, CANCELLED, FAILED);
+        allow(PAYMENT_ERROR, PAID, PAYMENT_FAILED, PAYMENT_ERROR, CANCELLED, FAILED);
+        allow(PAID, REFUND_PENDING, REFUNDED, REFUND_FAILED, REFUND_ERROR, CANCELLED);
+        allow(REFUND_PENDING, REFUNDED, REFUND_FAILED, REFUND_ERROR);
+        allow(REFUND_FAILED, REFUND_PENDING, REFUNDED, REFUND_FAILED, REFUND_ERROR);
+        allow(REFUND_ERROR, REFUND_PENDING, REFUNDED, REFUND_FAILED, REFUND_ERROR);
+
+        @SuppressWarnings("unchecked")
+        Set<OrderStatus>[] sets = new Set[values().length];
+        for (OrderStatus status : values()) {
+            EnumSet<OrderStatus> predecessors = EnumSet.noneOf(OrderStatus.class);
+            for (OrderStatus previous : values()) {
+                if ((PREDECESSORS[status.ordinal()] & (1 << previous.ordinal())) != 0) {
+                    predecessors.add(previous);
+                }
+            }
+            sets[status.ordinal()] = Collections.unmodifiableSet(predecessors);
+        }
+        PREDECESSOR_SETS = sets;
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... to) {
+        for (OrderStatus next : to) {
+            SUCCESSORS[from.ordinal()] |= 1 << next.ordinal();
+            PREDECESSORS[next.ordinal()] |= 1 << from.ordinal();
+        }
+    }
+
     public boolean canTransitionTo(OrderStatus next) {
-        return switch (this) {
-            case PENDING -> EnumSet.of(STOCK_RESERVED, FAILED, PAYMENT_FAILED, PAYMENT_ERROR, CANCELLED).contains(next);
-            case STOCK_RESERVED -> EnumSet.of(PAID, PAYMENT_FAILED, PAYMENT_ERROR, CANCELLED).contains(next);
-            case PAYMENT_FAILED,
-                 PAYMENT_ERROR -> EnumSet.of(PAID, PAYMENT_FAILED, PAYMENT_ERROR, CANCELLED, FAILED).contains(next);
-            case PAID -> EnumSet.of(REFUND_PENDING, REFUNDED, REFUND_FAILED, REFUND_ERROR, CANCELLED).contains(next);
-            case REFUND_PENDING -> EnumSet.of(REFUNDED, REFUND_FAILED, REFUND_ERROR).contains(next);
-            case REFUND_FAILED,
-                 REFUND_ERROR -> EnumSet.of(REFUND_PENDING, REFUNDED, REFUND_FAILED, REFUND_ERROR).contains(next);
-            case REFUNDED, CANCELLED, FAILED -> false;
-        };
+        return (SUCCESSORS[ordinal()] & (1 << next.ordinal())) != 0;
+    }
+
+    /**
+     * Statuses an order may be in for {@code canTransitionTo(this)} to hold; empty for PENDING.
+     */
+    public Set<OrderStatus> predecessors() {
+        return PREDECESSOR_SETS[ordinal()];
     }
 }